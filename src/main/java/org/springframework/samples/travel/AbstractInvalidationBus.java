@@ -0,0 +1,41 @@
+package org.springframework.samples.travel;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Base class for {@link InvalidationBus} implementations that keeps the registered listeners.
+ */
+public abstract class AbstractInvalidationBus implements InvalidationBus {
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final List<InvalidationListener> listeners = new CopyOnWriteArrayList<InvalidationListener>();
+
+	public void setListeners(List<InvalidationListener> listeners) {
+		this.listeners.addAll(listeners);
+	}
+
+	public void addListener(InvalidationListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Pass the given ids to every listener. A failing listener does not keep the others from being notified.
+	 */
+	protected void notifyListeners(Collection<Long> hotelIds) {
+		for (InvalidationListener listener : listeners) {
+			try {
+				listener.invalidate(hotelIds);
+			}
+			catch (RuntimeException ex) {
+				logger.warn("Invalidation listener " + listener + " failed for hotels " + hotelIds, ex);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+package org.springframework.samples.travel;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds named {@link ConcurrencyLimit}s, created on first use with the configured settings. Endpoints that load the
+ * same resource, e.g. the database, should share one limit, so that priority requests get their headroom over all of
+ * the others.
+ */
+public class AdmissionControl {
+
+	private final ConcurrentMap<String, ConcurrencyLimit> limits = new ConcurrentHashMap<String, ConcurrencyLimit>();
+
+	private int initialLimit = 20;
+
+	private int minLimit = 2;
+
+	private int maxLimit = 200;
+
+	private long latencyThreshold = 500;
+
+	private double backoffRatio = 0.9;
+
+	private int priorityHeadroom = 5;
+
+	private int retryAfter = 1;
+
+	public void setInitialLimit(int initialLimit) {
+		this.initialLimit = initialLimit;
+	}
+
+	public void setMinLimit(int minLimit) {
+		this.minLimit = minLimit;
+	}
+
+	public void setMaxLimit(int maxLimit) {
+		this.maxLimit = maxLimit;
+	}
+
+	/**
+	 * The request latency in milliseconds above which an endpoint's limit is reduced. Default is 500.
+	 */
+	public void setLatencyThreshold(long latencyThreshold) {
+		this.latencyThreshold = latencyThreshold;
+	}
+
+	/**
+	 * The factor a limit is multiplied by when it is reduced. Default is 0.9.
+	 */
+	public void setBackoffRatio(double backoffRatio) {
+		this.backoffRatio = backoffRatio;
+	}
+
+	/**
+	 * The number of slots above the limit available to priority requests. Default is 5.
+	 */
+	public void setPriorityHeadroom(int priorityHeadroom) {
+		this.priorityHeadroom = priorityHeadroom;
+	}
+
+	/**
+	 * The number of seconds clients are asked to wait before retrying a rejected request. Default is 1.
+	 */
+	public void setRetryAfter(int retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+
+	public int getRetryAfter() {
+		return retryAfter;
+	}
+
+	public ConcurrencyLimit getLimit(String name) {
+		ConcurrencyLimit limit = limits.get(name);
+		if (limit == null) {
+			limit = new ConcurrencyLimit(name, initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio,
+					priorityHeadroom);
+			ConcurrencyLimit existing = limits.putIfAbsent(name, limit);
+			if (existing != null) {
+				limit = existing;
+			}
+		}
+		return limit;
+	}
+
+	public Collection<ConcurrencyLimit> getLimits() {
+		return limits.values();
+	}
+
+}
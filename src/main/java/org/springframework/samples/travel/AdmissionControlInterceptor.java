@@ -0,0 +1,60 @@
+package org.springframework.samples.travel;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Admits a request only if a named {@link ConcurrencyLimit} has a free slot, and otherwise rejects it right away with
+ * 503 and a Retry-After header, so a slow database cannot tie up every container thread. All requests through one
+ * interceptor share its limit; requests other than GET, i.e. writes, are admitted with priority, so they get the
+ * headroom over searches and page views.
+ */
+public class AdmissionControlInterceptor extends HandlerInterceptorAdapter {
+
+	private static final Log logger = LogFactory.getLog(AdmissionControlInterceptor.class);
+
+	private static final String LIMIT_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".LIMIT";
+
+	private static final String START_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".START";
+
+	private final AdmissionControl admissionControl;
+
+	private final String limitName;
+
+	public AdmissionControlInterceptor(AdmissionControl admissionControl, String limitName) {
+		this.admissionControl = admissionControl;
+		this.limitName = limitName;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+			throws Exception {
+		ConcurrencyLimit limit = admissionControl.getLimit(limitName);
+		if (!limit.tryAcquire(!"GET".equals(request.getMethod()))) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Rejected " + request.getMethod() + " " + request.getRequestURI() + ": " + limit);
+			}
+			response.setHeader("Retry-After", String.valueOf(admissionControl.getRetryAfter()));
+			response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			return false;
+		}
+		request.setAttribute(LIMIT_ATTRIBUTE, limit);
+		request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) throws Exception {
+		ConcurrencyLimit limit = (ConcurrencyLimit) request.getAttribute(LIMIT_ATTRIBUTE);
+		if (limit != null) {
+			request.removeAttribute(LIMIT_ATTRIBUTE);
+			limit.release(System.nanoTime() - (Long) request.getAttribute(START_ATTRIBUTE));
+		}
+	}
+
+}
@@ -1,5 +1,6 @@
 package org.springframework.samples.travel;
 
+import org.springframework.util.StringUtils;
 
 public class AjaxUtils {
 
@@ -7,6 +8,22 @@ public class AjaxUtils {
 		return requestedWith != null ? "XMLHttpRequest".equals(requestedWith) : false;
 	}
 
+	public static boolean isNoLayoutRequest(String htmlFormat) {
+		return "nolayout".equals(htmlFormat);
+	}
+
+	public static boolean isFragmentRequested(String fragments, String fragmentId) {
+		if (fragments == null) {
+			return false;
+		}
+		for (String fragment : StringUtils.tokenizeToStringArray(fragments, ",")) {
+			if (fragment.equals(fragmentId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private AjaxUtils() {}
 
 }
@@ -0,0 +1,470 @@
+package org.springframework.samples.travel;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Compresses text responses with gzip or deflate, as negotiated through the "Accept-Encoding" request header.
+ *
+ * <p>Output is held back until it exceeds {@link #setMinSize(int) minSize} bytes; smaller bodies, such as most
+ * "htmlFormat=nolayout" ajax fragments, are written uncompressed with a Content-Length. Larger bodies are compressed
+ * and streamed as they are written rather than buffered in full. Deflaters are taken from a {@link DeflaterPool}.
+ *
+ * <p>The compression ratio and the time spent deflating are logged per request at debug level.
+ */
+public class CompressionFilter extends OncePerRequestFilter {
+
+	private static final String GZIP = "gzip";
+
+	private static final String DEFLATE = "deflate";
+
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+	private int minSize = 1024;
+
+	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+	private int poolSize = 32;
+
+	private DeflaterPool gzipPool;
+
+	private DeflaterPool deflatePool;
+
+	/**
+	 * The number of bytes below which a response is sent uncompressed. Default is 1024.
+	 */
+	public void setMinSize(int minSize) {
+		this.minSize = minSize;
+	}
+
+	/**
+	 * The deflate compression level, 1 (fastest) to 9 (best). Default is zlib's default level.
+	 */
+	public void setCompressionLevel(int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+
+	/**
+	 * The maximum number of idle deflaters retained per encoding. Default is 32.
+	 */
+	public void setPoolSize(int poolSize) {
+		this.poolSize = poolSize;
+	}
+
+	@Override
+	protected void initFilterBean() throws ServletException {
+		gzipPool = new DeflaterPool(poolSize, compressionLevel, true);
+		deflatePool = new DeflaterPool(poolSize, compressionLevel, false);
+	}
+
+	@Override
+	public void destroy() {
+		gzipPool.clear();
+		deflatePool.clear();
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String encoding = negotiateEncoding(request.getHeader("Accept-Encoding"));
+		if (encoding == null || "HEAD".equals(request.getMethod())) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		response.addHeader("Vary", "Accept-Encoding");
+		CompressingResponseWrapper responseWrapper = new CompressingResponseWrapper(response, encoding);
+		try {
+			filterChain.doFilter(request, responseWrapper);
+			responseWrapper.finish();
+		}
+		finally {
+			responseWrapper.release();
+		}
+		if (logger.isDebugEnabled() && responseWrapper.outputStream.state == CompressingOutputStream.COMPRESSING) {
+			CompressingOutputStream out = responseWrapper.outputStream;
+			logger.debug("Compressed " + request.getRequestURI() + " with " + encoding + ": " + out.bytesIn + " -> "
+					+ out.bytesOut + " bytes (" + (out.bytesOut * 100 / Math.max(out.bytesIn, 1)) + "%) in "
+					+ (out.deflateNanos / 1000) + " us");
+		}
+	}
+
+	/**
+	 * Pick the encoding with the highest quality value from the given "Accept-Encoding" header, preferring gzip on ties.
+	 * @return "gzip", "deflate", or {@code null} if neither is acceptable
+	 */
+	protected String negotiateEncoding(String acceptEncoding) {
+		if (!StringUtils.hasText(acceptEncoding)) {
+			return null;
+		}
+		float gzip = -1;
+		float deflate = -1;
+		float any = -1;
+		for (String token : StringUtils.tokenizeToStringArray(acceptEncoding, ",")) {
+			String coding = token;
+			float quality = 1;
+			int i = token.indexOf(';');
+			if (i != -1) {
+				coding = token.substring(0, i).trim();
+				String param = token.substring(i + 1).trim();
+				if (param.startsWith("q=")) {
+					try {
+						quality = Float.parseFloat(param.substring(2));
+					}
+					catch (NumberFormatException ex) {
+						quality = 0;
+					}
+				}
+			}
+			if (GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+				gzip = quality;
+			}
+			else if (DEFLATE.equalsIgnoreCase(coding)) {
+				deflate = quality;
+			}
+			else if ("*".equals(coding)) {
+				any = quality;
+			}
+		}
+		if (gzip < 0) {
+			gzip = any;
+		}
+		if (deflate < 0) {
+			deflate = any;
+		}
+		if (gzip > 0 && gzip >= deflate) {
+			return GZIP;
+		}
+		return (deflate > 0) ? DEFLATE : null;
+	}
+
+	/**
+	 * Whether responses of the given content type are worth compressing.
+	 */
+	protected boolean isCompressible(String contentType) {
+		if (contentType == null) {
+			return false;
+		}
+		String type = contentType.toLowerCase();
+		return type.startsWith("text/") || type.startsWith("application/json")
+				|| type.startsWith("application/javascript") || type.startsWith("application/xml")
+				|| type.indexOf("+xml") != -1;
+	}
+
+	private class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+		private final CompressingOutputStream outputStream;
+
+		private PrintWriter writer;
+
+		public CompressingResponseWrapper(HttpServletResponse response, String encoding) {
+			super(response);
+			this.outputStream = new CompressingOutputStream(response, encoding);
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			return outputStream;
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (writer == null) {
+				writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+			}
+			return writer;
+		}
+
+		@Override
+		public void setContentLength(int len) {
+			outputStream.setContentLength(len);
+		}
+
+		@Override
+		public void setHeader(String name, String value) {
+			if ("Content-Length".equalsIgnoreCase(name)) {
+				outputStream.setContentLength(Integer.parseInt(value));
+				return;
+			}
+			if ("Content-Encoding".equalsIgnoreCase(name)) {
+				outputStream.compressionAllowed = false;
+			}
+			super.setHeader(name, value);
+		}
+
+		@Override
+		public void addHeader(String name, String value) {
+			if ("Content-Length".equalsIgnoreCase(name)) {
+				outputStream.setContentLength(Integer.parseInt(value));
+				return;
+			}
+			if ("Content-Encoding".equalsIgnoreCase(name)) {
+				outputStream.compressionAllowed = false;
+			}
+			super.addHeader(name, value);
+		}
+
+		@Override
+		public void setIntHeader(String name, int value) {
+			if ("Content-Length".equalsIgnoreCase(name)) {
+				outputStream.setContentLength(value);
+				return;
+			}
+			super.setIntHeader(name, value);
+		}
+
+		@Override
+		public void addIntHeader(String name, int value) {
+			if ("Content-Length".equalsIgnoreCase(name)) {
+				outputStream.setContentLength(value);
+				return;
+			}
+			super.addIntHeader(name, value);
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			if (writer != null) {
+				writer.flush();
+			}
+			outputStream.flush();
+		}
+
+		@Override
+		public void reset() {
+			super.reset();
+			outputStream.resetBuffer();
+		}
+
+		@Override
+		public void resetBuffer() {
+			super.resetBuffer();
+			outputStream.resetBuffer();
+		}
+
+		public void finish() throws IOException {
+			if (writer != null) {
+				writer.flush();
+			}
+			outputStream.finish();
+		}
+
+		public void release() {
+			outputStream.release();
+		}
+	}
+
+	private class CompressingOutputStream extends ServletOutputStream {
+
+		static final int BUFFERING = 0;
+
+		static final int COMPRESSING = 1;
+
+		static final int PASSTHROUGH = 2;
+
+		private final HttpServletResponse response;
+
+		private final String encoding;
+
+		private final byte[] buffer = new byte[minSize];
+
+		private final byte[] singleByte = new byte[1];
+
+		private int count;
+
+		private int state = BUFFERING;
+
+		private boolean compressionAllowed = true;
+
+		private int contentLength = -1;
+
+		private ServletOutputStream out;
+
+		private Deflater deflater;
+
+		private byte[] deflateBuffer;
+
+		private CRC32 crc;
+
+		private boolean finished;
+
+		private long bytesIn;
+
+		private long bytesOut;
+
+		private long deflateNanos;
+
+		public CompressingOutputStream(HttpServletResponse response, String encoding) {
+			this.response = response;
+			this.encoding = encoding;
+		}
+
+		public void setContentLength(int contentLength) {
+			if (state == BUFFERING) {
+				this.contentLength = contentLength;
+				if (contentLength < minSize) {
+					compressionAllowed = false;
+				}
+			}
+			else if (state == PASSTHROUGH) {
+				response.setContentLength(contentLength);
+			}
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			singleByte[0] = (byte) b;
+			write(singleByte, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (finished) {
+				throw new IOException("Response has already been completed");
+			}
+			if (state == BUFFERING) {
+				if (count + len <= buffer.length) {
+					System.arraycopy(b, off, buffer, count, len);
+					count += len;
+					return;
+				}
+				startStreaming();
+			}
+			if (state == COMPRESSING) {
+				deflate(b, off, len);
+			}
+			else {
+				bytesIn += len;
+				out.write(b, off, len);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// Below the threshold there is nothing worth committing yet
+			if (state != BUFFERING) {
+				out.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			finish();
+		}
+
+		public void resetBuffer() {
+			if (state == BUFFERING) {
+				count = 0;
+			}
+		}
+
+		private void startStreaming() throws IOException {
+			out = response.getOutputStream();
+			if (compressionAllowed && isCompressible(response.getContentType())) {
+				response.setHeader("Content-Encoding", encoding);
+				state = COMPRESSING;
+				if (GZIP.equals(encoding)) {
+					deflater = gzipPool.borrow();
+					crc = new CRC32();
+					out.write(GZIP_HEADER);
+					bytesOut += GZIP_HEADER.length;
+				}
+				else {
+					deflater = deflatePool.borrow();
+				}
+				deflateBuffer = new byte[Math.max(minSize, 512)];
+				deflate(buffer, 0, count);
+			}
+			else {
+				state = PASSTHROUGH;
+				if (contentLength >= 0) {
+					response.setContentLength(contentLength);
+				}
+				bytesIn += count;
+				out.write(buffer, 0, count);
+			}
+			count = 0;
+		}
+
+		private void deflate(byte[] b, int off, int len) throws IOException {
+			bytesIn += len;
+			if (crc != null) {
+				crc.update(b, off, len);
+			}
+			deflater.setInput(b, off, len);
+			while (!deflater.needsInput()) {
+				drain();
+			}
+		}
+
+		private void drain() throws IOException {
+			long start = System.nanoTime();
+			int n = deflater.deflate(deflateBuffer, 0, deflateBuffer.length);
+			deflateNanos += System.nanoTime() - start;
+			if (n > 0) {
+				out.write(deflateBuffer, 0, n);
+				bytesOut += n;
+			}
+		}
+
+		public void finish() throws IOException {
+			if (finished) {
+				return;
+			}
+			finished = true;
+			if (state == BUFFERING) {
+				if (count > 0) {
+					response.setContentLength(count);
+					bytesIn = count;
+					response.getOutputStream().write(buffer, 0, count);
+				}
+				else if (contentLength >= 0) {
+					response.setContentLength(contentLength);
+				}
+			}
+			else if (state == COMPRESSING) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					drain();
+				}
+				if (crc != null) {
+					writeIntLE(crc.getValue());
+					writeIntLE(bytesIn);
+				}
+			}
+		}
+
+		private void writeIntLE(long value) throws IOException {
+			out.write((int) (value & 0xff));
+			out.write((int) ((value >> 8) & 0xff));
+			out.write((int) ((value >> 16) & 0xff));
+			out.write((int) ((value >> 24) & 0xff));
+			bytesOut += 4;
+		}
+
+		public void release() {
+			if (deflater != null) {
+				if (GZIP.equals(encoding)) {
+					gzipPool.release(deflater);
+				}
+				else {
+					deflatePool.release(deflater);
+				}
+				deflater = null;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+package org.springframework.samples.travel;
+
+/**
+ * An adaptive limit on the number of requests an endpoint processes at the same time.
+ *
+ * <p>The limit follows additive increase / multiplicative decrease (AIMD): while requests complete within the latency
+ * threshold and the endpoint is busy, the limit grows by about one per limit's worth of completed requests; when a
+ * request exceeds the threshold the limit is cut by the backoff ratio, at most once per threshold interval. Priority
+ * requests may use a number of slots above the limit.
+ */
+public class ConcurrencyLimit {
+
+	private final String name;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final long latencyThresholdNanos;
+
+	private final double backoffRatio;
+
+	private final int priorityHeadroom;
+
+	private double limit;
+
+	private int inFlight;
+
+	private long lastBackoff;
+
+	private long accepted;
+
+	private long rejected;
+
+	private long lastRejected;
+
+	public ConcurrencyLimit(String name, int initialLimit, int minLimit, int maxLimit, long latencyThresholdMillis,
+			double backoffRatio, int priorityHeadroom) {
+		this.name = name;
+		this.limit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.latencyThresholdNanos = latencyThresholdMillis * 1000000;
+		this.backoffRatio = backoffRatio;
+		this.priorityHeadroom = priorityHeadroom;
+		this.lastBackoff = System.nanoTime() - latencyThresholdNanos;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Take a slot if one is available.
+	 * @param priority whether the request may use the priority headroom above the limit
+	 * @return whether the request was admitted; if so {@link #release(long)} must be called when it completes
+	 */
+	public synchronized boolean tryAcquire(boolean priority) {
+		int max = (int) limit + (priority ? priorityHeadroom : 0);
+		if (inFlight >= max) {
+			rejected++;
+			lastRejected = System.nanoTime();
+			return false;
+		}
+		inFlight++;
+		accepted++;
+		return true;
+	}
+
+	/**
+	 * Give back a slot and adjust the limit according to the latency of the completed request.
+	 */
+	public synchronized void release(long latencyNanos) {
+		inFlight--;
+		if (latencyNanos > latencyThresholdNanos) {
+			long now = System.nanoTime();
+			if (now - lastBackoff >= latencyThresholdNanos) {
+				limit = Math.max(minLimit, limit * backoffRatio);
+				lastBackoff = now;
+			}
+		}
+		else if (inFlight + 1 >= limit / 2) {
+			limit = Math.min(maxLimit, limit + 1 / limit);
+		}
+	}
+
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	public synchronized long getAccepted() {
+		return accepted;
+	}
+
+	public synchronized long getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * Whether a request was rejected within the given number of milliseconds.
+	 */
+	public synchronized boolean isShedding(long periodMillis) {
+		return rejected > 0 && System.nanoTime() - lastRejected < periodMillis * 1000000;
+	}
+
+	@Override
+	public String toString() {
+		return "ConcurrencyLimit(" + name + ",limit=" + getLimit() + ",inFlight=" + getInFlight() + ",accepted="
+				+ getAccepted() + ",rejected=" + getRejected() + ")";
+	}
+
+}
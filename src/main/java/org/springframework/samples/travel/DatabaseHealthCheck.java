@@ -0,0 +1,74 @@
+package org.springframework.samples.travel;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Checks that the database answers a validation query within a timeout. The outcome is reused for
+ * {@link #setCheckInterval(long) checkInterval} ms, so frequent readiness probes do not each hit the database.
+ */
+public class DatabaseHealthCheck {
+
+	private static final Log logger = LogFactory.getLog(DatabaseHealthCheck.class);
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private String validationQuery = "select count(*) from INFORMATION_SCHEMA.SYSTEM_USERS";
+
+	private long checkInterval = 1000;
+
+	private volatile long lastCheck;
+
+	private volatile boolean healthy;
+
+	public DatabaseHealthCheck(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setQueryTimeout(2);
+	}
+
+	/**
+	 * The query to run against the database. Default is an HSQLDB system table query.
+	 */
+	public void setValidationQuery(String validationQuery) {
+		this.validationQuery = validationQuery;
+	}
+
+	/**
+	 * The number of seconds the validation query may take. Default is 2.
+	 */
+	public void setQueryTimeout(int queryTimeout) {
+		this.jdbcTemplate.setQueryTimeout(queryTimeout);
+	}
+
+	/**
+	 * How long in milliseconds the outcome of a check is reused. Default is 1000.
+	 */
+	public void setCheckInterval(long checkInterval) {
+		this.checkInterval = checkInterval;
+	}
+
+	public boolean isHealthy() {
+		long now = System.currentTimeMillis();
+		if (lastCheck == 0 || now - lastCheck >= checkInterval) {
+			healthy = check();
+			lastCheck = now;
+		}
+		return healthy;
+	}
+
+	private boolean check() {
+		try {
+			jdbcTemplate.queryForList(validationQuery);
+			return true;
+		}
+		catch (DataAccessException ex) {
+			logger.warn("Database health check failed", ex);
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+package org.springframework.samples.travel;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * A bounded pool of {@link Deflater} instances. Each Deflater holds native zlib memory that is only released by
+ * {@link Deflater#end()} or finalization, so reusing them avoids native memory churn under load.
+ */
+public class DeflaterPool {
+
+	private final BlockingQueue<Deflater> deflaters;
+
+	private final int level;
+
+	private final boolean nowrap;
+
+	/**
+	 * Create a pool.
+	 * @param capacity the maximum number of idle deflaters retained
+	 * @param level the compression level, see {@link Deflater#setLevel(int)}
+	 * @param nowrap whether to omit the zlib header and checksum (as required for gzip framing)
+	 */
+	public DeflaterPool(int capacity, int level, boolean nowrap) {
+		this.deflaters = new ArrayBlockingQueue<Deflater>(capacity);
+		this.level = level;
+		this.nowrap = nowrap;
+	}
+
+	/**
+	 * Take an idle deflater from the pool, or create a new one if none is available.
+	 */
+	public Deflater borrow() {
+		Deflater deflater = deflaters.poll();
+		return (deflater != null) ? deflater : new Deflater(level, nowrap);
+	}
+
+	/**
+	 * Reset the given deflater and return it to the pool. Deflaters that do not fit are ended right away.
+	 */
+	public void release(Deflater deflater) {
+		deflater.reset();
+		if (!deflaters.offer(deflater)) {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * End all idle deflaters.
+	 */
+	public void clear() {
+		Deflater deflater;
+		while ((deflater = deflaters.poll()) != null) {
+			deflater.end();
+		}
+	}
+
+}
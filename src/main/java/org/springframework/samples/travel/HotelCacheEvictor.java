@@ -0,0 +1,26 @@
+package org.springframework.samples.travel;
+
+import java.util.Collection;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Evicts changed hotels from the JPA second-level cache of this node.
+ */
+public class HotelCacheEvictor implements InvalidationListener {
+
+	private final EntityManagerFactory entityManagerFactory;
+
+	public HotelCacheEvictor(EntityManagerFactory entityManagerFactory) {
+		this.entityManagerFactory = entityManagerFactory;
+	}
+
+	public void invalidate(Collection<Long> hotelIds) {
+		Cache cache = entityManagerFactory.getCache();
+		for (Long hotelId : hotelIds) {
+			cache.evict(Hotel.class, hotelId);
+		}
+	}
+
+}
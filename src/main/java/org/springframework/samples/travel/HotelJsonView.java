@@ -0,0 +1,159 @@
+package org.springframework.samples.travel;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.view.AbstractView;
+
+/**
+ * Renders the "hotelList" or "hotel" model attribute as JSON for API clients. A model with neither is a search
+ * without matches and is rendered as an empty array. Hotels are written one at a time
+ * through a streaming {@link JsonGenerator}, with no intermediate object tree.
+ *
+ * <p>The "fields" request parameter selects which properties to write, e.g. "fields=id,name,city". All properties
+ * are written by default.
+ */
+public class HotelJsonView extends AbstractView {
+
+	public static final String DEFAULT_CONTENT_TYPE = "application/json";
+
+	private static final JsonFactory jsonFactory = new JsonFactory();
+
+	private String fieldsParam = "fields";
+
+	public HotelJsonView() {
+		setContentType(DEFAULT_CONTENT_TYPE);
+	}
+
+	public void setFieldsParam(String fieldsParam) {
+		this.fieldsParam = fieldsParam;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	protected void renderMergedOutputModel(Map<String, Object> model, HttpServletRequest request,
+			HttpServletResponse response) throws Exception {
+		EnumSet<Field> fields = getFields(request);
+		response.setContentType(getContentType());
+		response.setCharacterEncoding("UTF-8");
+		JsonGenerator generator = jsonFactory.createJsonGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+		if (model.containsKey("hotelList")) {
+			generator.writeStartArray();
+			for (Hotel hotel : (List<Hotel>) model.get("hotelList")) {
+				writeHotel(generator, hotel, fields);
+			}
+			generator.writeEndArray();
+		}
+		else if (model.containsKey("hotel")) {
+			Hotel hotel = (Hotel) model.get("hotel");
+			if (hotel != null) {
+				writeHotel(generator, hotel, fields);
+			}
+			else {
+				response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+				generator.writeNull();
+			}
+		}
+		else {
+			// an empty search result, which Model.addAttribute(Object) does not add
+			generator.writeStartArray();
+			generator.writeEndArray();
+		}
+		generator.flush();
+	}
+
+	private EnumSet<Field> getFields(HttpServletRequest request) {
+		String param = request.getParameter(fieldsParam);
+		if (!StringUtils.hasText(param)) {
+			return EnumSet.allOf(Field.class);
+		}
+		EnumSet<Field> fields = EnumSet.noneOf(Field.class);
+		for (String name : StringUtils.tokenizeToStringArray(param, ",")) {
+			try {
+				fields.add(Field.valueOf(name.toUpperCase(Locale.ENGLISH)));
+			}
+			catch (IllegalArgumentException ex) {
+				// ignore unknown fields
+			}
+		}
+		return fields;
+	}
+
+	private void writeHotel(JsonGenerator generator, Hotel hotel, EnumSet<Field> fields) throws IOException {
+		generator.writeStartObject();
+		for (Field field : fields) {
+			field.write(generator, hotel);
+		}
+		generator.writeEndObject();
+	}
+
+	/**
+	 * The Hotel properties that may be selected through the fields parameter.
+	 */
+	private enum Field {
+
+		ID {
+			void write(JsonGenerator generator, Hotel hotel) throws IOException {
+				if (hotel.getId() != null) {
+					generator.writeNumberField("id", hotel.getId());
+				}
+			}
+		},
+		NAME {
+			void write(JsonGenerator generator, Hotel hotel) throws IOException {
+				writeString(generator, "name", hotel.getName());
+			}
+		},
+		ADDRESS {
+			void write(JsonGenerator generator, Hotel hotel) throws IOException {
+				writeString(generator, "address", hotel.getAddress());
+			}
+		},
+		CITY {
+			void write(JsonGenerator generator, Hotel hotel) throws IOException {
+				writeString(generator, "city", hotel.getCity());
+			}
+		},
+		STATE {
+			void write(JsonGenerator generator, Hotel hotel) throws IOException {
+				writeString(generator, "state", hotel.getState());
+			}
+		},
+		ZIP {
+			void write(JsonGenerator generator, Hotel hotel) throws IOException {
+				writeString(generator, "zip", hotel.getZip());
+			}
+		},
+		COUNTRY {
+			void write(JsonGenerator generator, Hotel hotel) throws IOException {
+				writeString(generator, "country", hotel.getCountry());
+			}
+		},
+		PRICE {
+			void write(JsonGenerator generator, Hotel hotel) throws IOException {
+				if (hotel.getPrice() != null) {
+					generator.writeNumberField("price", hotel.getPrice());
+				}
+			}
+		};
+
+		abstract void write(JsonGenerator generator, Hotel hotel) throws IOException;
+
+		private static void writeString(JsonGenerator generator, String name, String value) throws IOException {
+			if (value != null) {
+				generator.writeStringField(name, value);
+			}
+		}
+	}
+
+}
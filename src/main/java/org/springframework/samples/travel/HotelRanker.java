@@ -0,0 +1,157 @@
+package org.springframework.samples.travel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Ranks hotels that matched a search by relevance and keeps only the best ones needed for the requested page.
+ *
+ * <p>Every search term is scored against each field and the best field counts for that term; the hotel's score is the
+ * sum over all terms. Fields are weighted name (8), city (4), address (2) and zip (1), and the kind of match
+ * multiplies the weight: the whole field (3), the start of a word (2) or anywhere (1). A {@code *} in a term matches
+ * any characters, as in the search query.
+ *
+ * <p>Candidates are offered one at a time and held in a bounded heap of the best {@code (page + 1) * pageSize}, so
+ * memory stays proportional to the page rather than to the number of matches. Ties are broken by name and then id,
+ * which keeps the order, and therefore paging, stable.
+ */
+public class HotelRanker {
+
+	private static final int NAME_WEIGHT = 8;
+
+	private static final int CITY_WEIGHT = 4;
+
+	private static final int ADDRESS_WEIGHT = 2;
+
+	private static final int ZIP_WEIGHT = 1;
+
+	private static final Comparator<Candidate> BEST_FIRST = new Comparator<Candidate>() {
+		public int compare(Candidate c1, Candidate c2) {
+			if (c1.score != c2.score) {
+				return c1.score > c2.score ? -1 : 1;
+			}
+			int result = c1.name.compareTo(c2.name);
+			return (result != 0) ? result : c1.id.compareTo(c2.id);
+		}
+	};
+
+	private final List<Term> terms = new ArrayList<Term>();
+
+	private final int page;
+
+	private final int pageSize;
+
+	private final int capacity;
+
+	private final PriorityQueue<Candidate> best;
+
+	/**
+	 * Create a ranker for the given lower case search terms.
+	 * @param terms the search terms, possibly containing {@code *} wildcards
+	 * @param page the zero-based page to return; a negative page is treated as the first
+	 * @param pageSize the page size, or 0 or less to return all matches
+	 */
+	public HotelRanker(List<String> terms, int page, int pageSize) {
+		for (String term : terms) {
+			this.terms.add(new Term(term));
+		}
+		this.page = Math.max(0, page);
+		this.pageSize = Math.max(0, pageSize);
+		this.capacity = (this.pageSize > 0) ? (int) Math.min((this.page + 1L) * this.pageSize, Integer.MAX_VALUE)
+				: Integer.MAX_VALUE;
+		this.best = new PriorityQueue<Candidate>(Math.min(capacity, 64) + 1, Collections.reverseOrder(BEST_FIRST));
+	}
+
+	/**
+	 * Score a matching hotel and keep it if it ranks among the best seen so far.
+	 */
+	public void offer(Long id, String name, String city, String address, String zip) {
+		Candidate candidate = new Candidate(id, (name != null) ? name : "", score(name, city, address, zip));
+		if (best.size() < capacity) {
+			best.add(candidate);
+		}
+		else if (best.peek() != null && BEST_FIRST.compare(candidate, best.peek()) < 0) {
+			best.poll();
+			best.add(candidate);
+		}
+	}
+
+	/**
+	 * The ids of the hotels on the requested page, best first.
+	 */
+	public List<Long> getPage() {
+		List<Candidate> ranked = new ArrayList<Candidate>(best);
+		Collections.sort(ranked, BEST_FIRST);
+		long from = (long) page * pageSize;
+		List<Long> ids = new ArrayList<Long>();
+		for (int i = (int) Math.min(from, ranked.size()); i < ranked.size(); i++) {
+			ids.add(ranked.get(i).id);
+		}
+		return ids;
+	}
+
+	private int score(String name, String city, String address, String zip) {
+		int score = 0;
+		for (Term term : terms) {
+			score += Math.max(Math.max(term.score(name) * NAME_WEIGHT, term.score(city) * CITY_WEIGHT),
+					Math.max(term.score(address) * ADDRESS_WEIGHT, term.score(zip) * ZIP_WEIGHT));
+		}
+		return score;
+	}
+
+	private static class Term {
+
+		private final Pattern pattern;
+
+		private final Pattern wordPrefix;
+
+		public Term(String term) {
+			String[] parts = term.split("\\*", -1);
+			StringBuilder regex = new StringBuilder();
+			for (int i = 0; i < parts.length; i++) {
+				if (i > 0) {
+					regex.append(".*");
+				}
+				if (parts[i].length() > 0) {
+					regex.append(Pattern.quote(parts[i]));
+				}
+			}
+			pattern = Pattern.compile(regex.toString(), Pattern.DOTALL);
+			wordPrefix = Pattern.compile("(?:^|[^\\p{L}\\p{N}])" + regex, Pattern.DOTALL);
+		}
+
+		public int score(String field) {
+			if (field == null) {
+				return 0;
+			}
+			String value = field.toLowerCase();
+			if (pattern.matcher(value).matches()) {
+				return 3;
+			}
+			if (wordPrefix.matcher(value).find()) {
+				return 2;
+			}
+			return pattern.matcher(value).find() ? 1 : 0;
+		}
+	}
+
+	private static class Candidate {
+
+		private final Long id;
+
+		private final String name;
+
+		private final int score;
+
+		public Candidate(Long id, String name, int score) {
+			this.id = id;
+			this.name = name;
+			this.score = score;
+		}
+	}
+
+}
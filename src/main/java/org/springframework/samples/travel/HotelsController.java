@@ -3,12 +3,14 @@ package org.springframework.samples.travel;
 import javax.inject.Inject;
 
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @Controller
 public class HotelsController {
@@ -36,13 +38,35 @@ public class HotelsController {
 	}
 
 	@RequestMapping(value = "/hotels/{id}", method = RequestMethod.POST)
-	public String edit(Hotel hotel, BindingResult result,
-			@RequestHeader(value = "X-Requested-With", required = false) String requestedWith) {
+	public String edit(Hotel hotel, BindingResult result, SearchCriteria searchCriteria, Model model,
+			@RequestHeader(value = "X-Requested-With", required = false) String requestedWith,
+			@RequestParam(value = "htmlFormat", required = false) String htmlFormat,
+			@RequestParam(value = "fragments", required = false) String fragments) {
+		boolean fragmentRequest = AjaxUtils.isAjaxRequest(requestedWith) && AjaxUtils.isNoLayoutRequest(htmlFormat);
 		if (result.hasErrors()) {
+			if (fragmentRequest) {
+				addHotelResults(fragments, searchCriteria, model);
+			}
 			return "hotels/edit";
 		}
 		bookingService.updateHotel(hotel);
-		return (AjaxUtils.isAjaxRequest(requestedWith)) ? "hotels/show" : "redirect:/hotels/" + hotel.getId();
+		if (!AjaxUtils.isAjaxRequest(requestedWith)) {
+			return "redirect:/hotels/" + hotel.getId();
+		}
+		if (fragmentRequest) {
+			addHotelResults(fragments, searchCriteria, model);
+		}
+		return "hotels/show";
+	}
+
+	/**
+	 * Refresh the search results along with the hotel details when both fragments are rendered together. The results
+	 * are only searched for if the request carries the search form, i.e. a page size.
+	 */
+	private void addHotelResults(String fragments, SearchCriteria searchCriteria, Model model) {
+		if (AjaxUtils.isFragmentRequested(fragments, "hotelResults") && searchCriteria.getPageSize() > 0) {
+			model.addAttribute(bookingService.findHotels(searchCriteria));
+		}
 	}
 
 }
\ No newline at end of file
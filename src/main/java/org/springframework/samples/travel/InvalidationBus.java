@@ -0,0 +1,20 @@
+package org.springframework.samples.travel;
+
+/**
+ * Distributes hotel change events to the {@link InvalidationListener}s of every node running the application.
+ */
+public interface InvalidationBus {
+
+	/**
+	 * Announce that a hotel changed.
+	 * @param hotelId the hotel id
+	 */
+	public void publish(Long hotelId);
+
+	/**
+	 * Register a listener for changes published on this node or any other.
+	 * @param listener the listener
+	 */
+	public void addListener(InvalidationListener listener);
+
+}
@@ -0,0 +1,16 @@
+package org.springframework.samples.travel;
+
+import java.util.Collection;
+
+/**
+ * Receives the ids of hotels that changed, on this node or another one, so that cached copies can be evicted.
+ */
+public interface InvalidationListener {
+
+	/**
+	 * Evict whatever is cached for the given hotels.
+	 * @param hotelIds the ids of the hotels that changed
+	 */
+	public void invalidate(Collection<Long> hotelIds);
+
+}
@@ -1,13 +1,20 @@
 package org.springframework.samples.travel;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 
 import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 /**
@@ -22,11 +29,18 @@ public class JpaBookingService implements BookingService {
 
 	private EntityManager em;
 
+	private InvalidationBus invalidationBus;
+
 	@PersistenceContext
 	public void setEntityManager(EntityManager em) {
 		this.em = em;
 	}
 
+	@Inject
+	public void setInvalidationBus(InvalidationBus invalidationBus) {
+		this.invalidationBus = invalidationBus;
+	}
+
 	@Transactional(readOnly = true)
 	@SuppressWarnings("unchecked")
 	public List<Booking> findBookings(String username) {
@@ -43,15 +57,50 @@ public class JpaBookingService implements BookingService {
 	@Transactional(readOnly = true)
 	@SuppressWarnings("unchecked")
 	public List<Hotel> findHotels(SearchCriteria criteria) {
-		String pattern = getSearchPattern(criteria);
-		return em.createQuery(
-				"select h from Hotel h where lower(h.name) like " + pattern
-						+ " or lower(h.city) like " + pattern
-						+ " or lower(h.zip) like " + pattern
-						+ " or lower(h.address) like " + pattern)
-				.setMaxResults(criteria.getPageSize()).setFirstResult(
-						criteria.getPage() * criteria.getPageSize())
-				.getResultList();
+		List<String> terms = getSearchTerms(criteria);
+		if (terms.isEmpty()) {
+			// nothing to rank by, so page through the whole catalog in the database
+			Query query = em.createQuery("select h from Hotel h order by h.name, h.id");
+			if (criteria.getPageSize() > 0) {
+				long first = (long) Math.max(0, criteria.getPage()) * criteria.getPageSize();
+				query.setFirstResult((int) Math.min(first, Integer.MAX_VALUE)).setMaxResults(criteria.getPageSize());
+			}
+			return query.getResultList();
+		}
+
+		StringBuilder jpql = new StringBuilder("select h.id, h.name, h.city, h.address, h.zip from Hotel h");
+		for (int i = 0; i < terms.size(); i++) {
+			jpql.append((i == 0) ? " where " : " and ");
+			jpql.append("(lower(h.name) like :term").append(i).append(" or lower(h.city) like :term").append(i)
+					.append(" or lower(h.address) like :term").append(i).append(" or lower(h.zip) like :term")
+					.append(i).append(")");
+		}
+		Query query = em.createQuery(jpql.toString());
+		for (int i = 0; i < terms.size(); i++) {
+			query.setParameter("term" + i, getSearchPattern(terms.get(i)));
+		}
+
+		HotelRanker ranker = new HotelRanker(terms, criteria.getPage(), criteria.getPageSize());
+		for (Object[] row : (List<Object[]>) query.getResultList()) {
+			ranker.offer((Long) row[0], (String) row[1], (String) row[2], (String) row[3], (String) row[4]);
+		}
+		List<Long> ids = ranker.getPage();
+		if (ids.isEmpty()) {
+			return new ArrayList<Hotel>();
+		}
+
+		Map<Long, Hotel> hotels = new HashMap<Long, Hotel>();
+		for (Hotel hotel : (List<Hotel>) em.createQuery("select h from Hotel h where h.id in (:ids)")
+				.setParameter("ids", ids).getResultList()) {
+			hotels.put(hotel.getId(), hotel);
+		}
+		List<Hotel> ranked = new ArrayList<Hotel>(ids.size());
+		for (Long id : ids) {
+			if (hotels.containsKey(id)) {
+				ranked.add(hotels.get(id));
+			}
+		}
+		return ranked;
 	}
 
 	@Transactional(readOnly = true)
@@ -62,18 +111,39 @@ public class JpaBookingService implements BookingService {
 	@Transactional
 	public void updateHotel(Hotel hotel) {
 		em.merge(hotel);
+		publishAfterCommit(hotel.getId());
 	}
 
 	// helpers
 
-	private String getSearchPattern(SearchCriteria criteria) {
+	private void publishAfterCommit(final Long hotelId) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					invalidationBus.publish(hotelId);
+				}
+			});
+		}
+		else {
+			invalidationBus.publish(hotelId);
+		}
+	}
+
+	private List<String> getSearchTerms(SearchCriteria criteria) {
+		List<String> terms = new ArrayList<String>();
 		if (StringUtils.hasText(criteria.getSearchString())) {
-			return "'%"
-					+ criteria.getSearchString().toLowerCase()
-							.replace('*', '%') + "%'";
-		} else {
-			return "'%'";
+			for (String term : criteria.getSearchString().toLowerCase().split("\\s+")) {
+				if (term.length() > 0) {
+					terms.add(term);
+				}
+			}
 		}
+		return terms;
+	}
+
+	private String getSearchPattern(String term) {
+		return "%" + term.replace('*', '%') + "%";
 	}
 
 	private User findUser(String username) {
@@ -0,0 +1,27 @@
+package org.springframework.samples.travel;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link InvalidationBus} for a single node: notifies this JVM's listeners synchronously on publish.
+ */
+public class LocalInvalidationBus extends AbstractInvalidationBus {
+
+	private final AtomicLong published = new AtomicLong();
+
+	public void publish(Long hotelId) {
+		published.incrementAndGet();
+		notifyListeners(Collections.singleton(hotelId));
+	}
+
+	public long getPublished() {
+		return published.get();
+	}
+
+	@Override
+	public String toString() {
+		return "LocalInvalidationBus(published=" + getPublished() + ")";
+	}
+
+}
@@ -0,0 +1,257 @@
+package org.springframework.samples.travel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * An {@link InvalidationBus} that reaches other nodes through UDP multicast.
+ *
+ * <p>Published ids are passed to local listeners right away and queued for the other nodes. Every
+ * {@link #setFlushInterval(long) flushInterval} ms the queue is sent as one datagram (or a few, for large batches),
+ * with repeated ids coalesced. Each datagram carries the time its oldest id was published, from which receivers
+ * measure the propagation lag. Multicast loopback is enabled, so several nodes can run on one machine.
+ */
+public class MulticastInvalidationBus extends AbstractInvalidationBus implements InitializingBean, DisposableBean {
+
+	private static final int MAGIC = 0x48494e56;
+
+	private static final int MAX_IDS_PER_PACKET = 160;
+
+	private final String nodeId = UUID.randomUUID().toString();
+
+	private final Set<Long> pending = new LinkedHashSet<Long>();
+
+	private long pendingSince;
+
+	private String group = "239.255.27.1";
+
+	private int port = 45588;
+
+	private int timeToLive = 1;
+
+	private long flushInterval = 50;
+
+	private MulticastSocket socket;
+
+	private InetAddress groupAddress;
+
+	private ScheduledExecutorService scheduler;
+
+	private volatile boolean running;
+
+	private final AtomicLong published = new AtomicLong();
+
+	private final AtomicLong coalesced = new AtomicLong();
+
+	private final AtomicLong sent = new AtomicLong();
+
+	private final AtomicLong received = new AtomicLong();
+
+	private final AtomicLong totalLag = new AtomicLong();
+
+	private volatile long maxLag;
+
+	/**
+	 * The multicast group address. Default is 239.255.27.1.
+	 */
+	public void setGroup(String group) {
+		this.group = group;
+	}
+
+	/**
+	 * The multicast port. Default is 45588.
+	 */
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	/**
+	 * The multicast time to live. Default is 1, i.e. the local network.
+	 */
+	public void setTimeToLive(int timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * How often, in milliseconds, queued ids are sent. Default is 50.
+	 */
+	public void setFlushInterval(long flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	public void afterPropertiesSet() throws IOException {
+		groupAddress = InetAddress.getByName(group);
+		socket = new MulticastSocket(port);
+		socket.setTimeToLive(timeToLive);
+		// false enables loopback, so that nodes on the same machine receive each other's datagrams
+		socket.setLoopbackMode(false);
+		socket.joinGroup(groupAddress);
+		running = true;
+
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("invalidation-bus-");
+		threadFactory.setDaemon(true);
+		threadFactory.newThread(new Runnable() {
+			public void run() {
+				receive();
+			}
+		}).start();
+		scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				flush();
+			}
+		}, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+	}
+
+	public void destroy() throws IOException {
+		scheduler.shutdown();
+		flush();
+		running = false;
+		socket.leaveGroup(groupAddress);
+		socket.close();
+	}
+
+	public void publish(Long hotelId) {
+		published.incrementAndGet();
+		synchronized (pending) {
+			if (pending.isEmpty()) {
+				pendingSince = System.currentTimeMillis();
+			}
+			if (!pending.add(hotelId)) {
+				coalesced.incrementAndGet();
+			}
+		}
+		notifyListeners(Collections.singleton(hotelId));
+	}
+
+	/**
+	 * Send all queued ids to the other nodes.
+	 */
+	public void flush() {
+		List<Long> ids;
+		long since;
+		synchronized (pending) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			ids = new ArrayList<Long>(pending);
+			since = pendingSince;
+			pending.clear();
+		}
+		try {
+			for (int i = 0; i < ids.size(); i += MAX_IDS_PER_PACKET) {
+				send(ids.subList(i, Math.min(i + MAX_IDS_PER_PACKET, ids.size())), since);
+			}
+		}
+		catch (IOException ex) {
+			logger.warn("Failed to send invalidation of hotels " + ids, ex);
+		}
+	}
+
+	private void send(List<Long> ids, long since) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + ids.size() * 8);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeUTF(nodeId);
+		out.writeLong(since);
+		out.writeInt(ids.size());
+		for (Long id : ids) {
+			out.writeLong(id);
+		}
+		socket.send(new DatagramPacket(bytes.toByteArray(), bytes.size(), groupAddress, port));
+		sent.incrementAndGet();
+	}
+
+	private void receive() {
+		byte[] buffer = new byte[8192];
+		while (running) {
+			try {
+				DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+				socket.receive(packet);
+				DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer, 0, packet.getLength()));
+				if (in.readInt() != MAGIC || nodeId.equals(in.readUTF())) {
+					continue;
+				}
+				long lag = System.currentTimeMillis() - in.readLong();
+				int count = in.readInt();
+				List<Long> ids = new ArrayList<Long>(count);
+				for (int i = 0; i < count; i++) {
+					ids.add(in.readLong());
+				}
+				received.incrementAndGet();
+				totalLag.addAndGet(lag);
+				if (lag > maxLag) {
+					maxLag = lag;
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug("Received invalidation of hotels " + ids + " after " + lag + " ms");
+				}
+				notifyListeners(ids);
+			}
+			catch (IOException ex) {
+				if (running) {
+					logger.warn("Failed to receive invalidation", ex);
+				}
+			}
+		}
+	}
+
+	public long getPublished() {
+		return published.get();
+	}
+
+	public long getCoalesced() {
+		return coalesced.get();
+	}
+
+	public long getSent() {
+		return sent.get();
+	}
+
+	public long getReceived() {
+		return received.get();
+	}
+
+	/**
+	 * The average time in milliseconds from publication on another node to delivery on this one.
+	 */
+	public long getAverageLag() {
+		long count = received.get();
+		return (count > 0) ? totalLag.get() / count : 0;
+	}
+
+	/**
+	 * The longest time in milliseconds from publication on another node to delivery on this one.
+	 */
+	public long getMaxLag() {
+		return maxLag;
+	}
+
+	@Override
+	public String toString() {
+		return "MulticastInvalidationBus(node=" + nodeId + ",published=" + getPublished() + ",coalesced="
+				+ getCoalesced() + ",sent=" + getSent() + ",received=" + getReceived() + ",averageLag="
+				+ getAverageLag() + "ms,maxLag=" + getMaxLag() + "ms)";
+	}
+
+}
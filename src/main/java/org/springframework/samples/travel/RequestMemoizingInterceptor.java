@@ -0,0 +1,133 @@
+package org.springframework.samples.travel;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Remembers the results of read-only calls for the rest of the current request, so that a read repeated while
+ * handling and rendering one request, e.g. {@link BookingService#findHotelById(Long)}, executes only once.
+ *
+ * <p>Only methods marked {@code @Transactional(readOnly = true)} are remembered, keyed by method and arguments, and
+ * only if every argument is an immutable value (a string, number, boolean, character, enum or null) or a
+ * {@link SearchCriteria}, whose values are copied into the key at the time of the call. Any call to a method
+ * that is not read-only, such as {@link BookingService#updateHotel(Hotel)}, forgets everything remembered in the
+ * request so far. Outside of a request, e.g. during startup, calls pass straight through.
+ */
+public class RequestMemoizingInterceptor implements MethodInterceptor {
+
+	private static final String CACHE_ATTRIBUTE = RequestMemoizingInterceptor.class.getName() + ".CACHE";
+
+	private static final Object NULL_RESULT = new Object();
+
+	private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>> asList(String.class,
+			Long.class, Integer.class, Short.class, Byte.class, Double.class, Float.class, Boolean.class,
+			Character.class, BigDecimal.class, BigInteger.class));
+
+	private final Map<Method, Boolean> readOnlyMethods = new ConcurrentHashMap<Method, Boolean>();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) {
+			return invocation.proceed();
+		}
+		if (!isReadOnly(invocation)) {
+			attributes.removeAttribute(CACHE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+			return invocation.proceed();
+		}
+		List<Object> key = getKey(invocation);
+		if (key == null) {
+			return invocation.proceed();
+		}
+
+		@SuppressWarnings("unchecked")
+		Map<List<Object>, Object> cache = (Map<List<Object>, Object>) attributes.getAttribute(CACHE_ATTRIBUTE,
+				RequestAttributes.SCOPE_REQUEST);
+		if (cache == null) {
+			cache = new HashMap<List<Object>, Object>();
+			attributes.setAttribute(CACHE_ATTRIBUTE, cache, RequestAttributes.SCOPE_REQUEST);
+		}
+		Object result = cache.get(key);
+		if (result != null) {
+			hits.incrementAndGet();
+			return (result != NULL_RESULT) ? result : null;
+		}
+		misses.incrementAndGet();
+		result = invocation.proceed();
+		cache.put(key, (result != null) ? result : NULL_RESULT);
+		return result;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	private boolean isReadOnly(MethodInvocation invocation) {
+		Method method = invocation.getMethod();
+		Boolean readOnly = readOnlyMethods.get(method);
+		if (readOnly == null) {
+			Class<?> targetClass = (invocation.getThis() != null) ? AopUtils.getTargetClass(invocation.getThis()) : null;
+			Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+			Transactional transactional = AnnotationUtils.findAnnotation(specificMethod, Transactional.class);
+			if (transactional == null) {
+				transactional = AnnotationUtils.findAnnotation(specificMethod.getDeclaringClass(), Transactional.class);
+			}
+			readOnly = (transactional != null && transactional.readOnly());
+			readOnlyMethods.put(method, readOnly);
+		}
+		return readOnly;
+	}
+
+	/**
+	 * The cache key for the invocation, or null if an argument may change after the call and cannot be copied.
+	 */
+	private List<Object> getKey(MethodInvocation invocation) {
+		Object[] arguments = invocation.getArguments();
+		List<Object> key = new ArrayList<Object>(arguments.length + 1);
+		key.add(invocation.getMethod());
+		for (Object argument : arguments) {
+			if (argument instanceof SearchCriteria) {
+				SearchCriteria criteria = (SearchCriteria) argument;
+				key.add(Arrays.asList(criteria.getSearchString(), criteria.getPage(), criteria.getPageSize()));
+			}
+			else if (argument == null || IMMUTABLE_TYPES.contains(argument.getClass()) || argument instanceof Enum) {
+				key.add(argument);
+			}
+			else {
+				return null;
+			}
+		}
+		return key;
+	}
+
+	@Override
+	public String toString() {
+		return "RequestMemoizingInterceptor(hits=" + getHits() + ",misses=" + getMisses() + ")";
+	}
+
+}
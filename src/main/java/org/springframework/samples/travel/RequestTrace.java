@@ -0,0 +1,144 @@
+package org.springframework.samples.travel;
+
+/**
+ * The spans recorded for one request. Instances are allocated once per thread with a fixed capacity and reused from
+ * request to request, so recording a span costs two {@link System#nanoTime()} calls and a few array writes. A span is
+ * recorded as a kind, e.g. "sql", and a detail, e.g. the statement, which are only combined into text by
+ * {@link #dump()}. Spans beyond the capacity are counted but not recorded.
+ */
+public class RequestTrace {
+
+	private final String[] kinds;
+
+	private final Object[] details;
+
+	private final long[] starts;
+
+	private final long[] ends;
+
+	private final int[] depths;
+
+	private String method;
+
+	private String uri;
+
+	private String query;
+
+	private long start;
+
+	private long end;
+
+	private int size;
+
+	private int depth;
+
+	private int dropped;
+
+	private int statements;
+
+	private boolean active;
+
+	public RequestTrace(int capacity) {
+		this.kinds = new String[capacity];
+		this.details = new Object[capacity];
+		this.starts = new long[capacity];
+		this.ends = new long[capacity];
+		this.depths = new int[capacity];
+	}
+
+	void begin(String method, String uri, String query) {
+		for (int i = 0; i < size; i++) {
+			kinds[i] = null;
+			details[i] = null;
+		}
+		this.method = method;
+		this.uri = uri;
+		this.query = query;
+		this.start = System.nanoTime();
+		this.end = 0;
+		this.size = 0;
+		this.depth = 0;
+		this.dropped = 0;
+		this.statements = 0;
+		this.active = true;
+	}
+
+	void end() {
+		this.end = System.nanoTime();
+		this.active = false;
+	}
+
+	int enter(String kind, Object detail) {
+		if (!active) {
+			return -1;
+		}
+		if (size == kinds.length) {
+			dropped++;
+			return -1;
+		}
+		int span = size++;
+		kinds[span] = kind;
+		details[span] = detail;
+		starts[span] = System.nanoTime();
+		ends[span] = 0;
+		depths[span] = depth++;
+		return span;
+	}
+
+	void exit(int span) {
+		if (span >= 0 && active) {
+			ends[span] = System.nanoTime();
+			depth--;
+		}
+	}
+
+	void statement() {
+		if (active) {
+			statements++;
+		}
+	}
+
+	public boolean isActive() {
+		return active;
+	}
+
+	public long getDurationNanos() {
+		return (active ? System.nanoTime() : end) - start;
+	}
+
+	public int getStatements() {
+		return statements;
+	}
+
+	/**
+	 * Render the trace as an indented span tree, one span per line.
+	 */
+	public String dump() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(method).append(' ').append(uri);
+		if (query != null) {
+			sb.append('?').append(query);
+		}
+		sb.append(' ').append(formatMillis(getDurationNanos())).append(" ms, ");
+		sb.append(size).append(" spans, ").append(statements).append(" statements");
+		if (dropped > 0) {
+			sb.append(", ").append(dropped).append(" spans dropped");
+		}
+		for (int i = 0; i < size; i++) {
+			sb.append('\n');
+			for (int j = 0; j <= depths[i]; j++) {
+				sb.append("  ");
+			}
+			sb.append(ends[i] != 0 ? formatMillis(ends[i] - starts[i]) + " ms " : "(open) ").append(kinds[i]);
+			if (details[i] != null) {
+				sb.append(' ').append(details[i] instanceof Class ? ((Class<?>) details[i]).getSimpleName() : details[i]);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String formatMillis(long nanos) {
+		return String.valueOf(nanos / 1000 / 1000.0);
+	}
+
+}
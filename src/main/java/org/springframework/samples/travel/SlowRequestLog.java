@@ -0,0 +1,61 @@
+package org.springframework.samples.travel;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Logs the span tree of requests that take longer than {@link #setThreshold(long) threshold} and keeps the most recent
+ * ones in memory. Traces of fast requests are never rendered, so they cost nothing here.
+ */
+public class SlowRequestLog {
+
+	private static final Log logger = LogFactory.getLog(SlowRequestLog.class);
+
+	private final LinkedList<String> recent = new LinkedList<String>();
+
+	private long threshold = 500;
+
+	private int capacity = 20;
+
+	/**
+	 * The request duration in milliseconds from which a request is logged. Default is 500.
+	 */
+	public void setThreshold(long threshold) {
+		this.threshold = threshold;
+	}
+
+	/**
+	 * The number of slow traces retained. Default is 20.
+	 */
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public void record(RequestTrace trace) {
+		if (trace.getDurationNanos() < threshold * 1000000) {
+			return;
+		}
+		String dump = trace.dump();
+		logger.warn("Slow request: " + dump);
+		synchronized (recent) {
+			recent.addFirst(dump);
+			if (recent.size() > capacity) {
+				recent.removeLast();
+			}
+		}
+	}
+
+	/**
+	 * The most recent slow traces, newest first.
+	 */
+	public List<String> getRecent() {
+		synchronized (recent) {
+			return new ArrayList<String>(recent);
+		}
+	}
+
+}
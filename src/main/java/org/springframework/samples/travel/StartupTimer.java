@@ -0,0 +1,71 @@
+package org.springframework.samples.travel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+/**
+ * Logs the duration of the startup phases of the context it is declared in: the initialization of every bean that
+ * takes longer than {@link #setSlowBeanThreshold(long) slowBeanThreshold} (such as the EntityManagerFactory, which
+ * also creates the schema and loads import.sql) and the refresh of the context as a whole.
+ */
+public class StartupTimer implements BeanPostProcessor, ApplicationListener<ContextRefreshedEvent>,
+		ApplicationContextAware {
+
+	private static final Log logger = LogFactory.getLog(StartupTimer.class);
+
+	private final Map<String, Long> initStartTimes = new ConcurrentHashMap<String, Long>();
+
+	private ApplicationContext applicationContext;
+
+	private long slowBeanThreshold = 100;
+
+	/**
+	 * The bean initialization time in milliseconds above which a bean is logged. Default is 100.
+	 */
+	public void setSlowBeanThreshold(long slowBeanThreshold) {
+		this.slowBeanThreshold = slowBeanThreshold;
+	}
+
+	public void setApplicationContext(ApplicationContext applicationContext) {
+		this.applicationContext = applicationContext;
+	}
+
+	public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+		initStartTimes.put(beanName, System.nanoTime());
+		return bean;
+	}
+
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		Long start = initStartTimes.remove(beanName);
+		if (start != null) {
+			long millis = (System.nanoTime() - start) / 1000000;
+			if (millis >= slowBeanThreshold) {
+				logger.info("Startup phase: initialized bean '" + beanName + "' in " + millis + " ms");
+			}
+			else if (logger.isDebugEnabled()) {
+				logger.debug("Startup phase: initialized bean '" + beanName + "' in " + millis + " ms");
+			}
+		}
+		return bean;
+	}
+
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		ApplicationContext context = event.getApplicationContext();
+		if (context != applicationContext) {
+			// refresh events of child contexts are published to their parent as well
+			return;
+		}
+		logger.info("Startup phase: refreshed " + context.getDisplayName() + " in "
+				+ (System.currentTimeMillis() - context.getStartupDate()) + " ms");
+	}
+
+}
@@ -0,0 +1,344 @@
+package org.springframework.samples.travel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.servlet.ServletContext;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.context.ServletContextAware;
+
+/**
+ * Warms up a freshly started node before it takes traffic. Once the context is refreshed, a background thread waits
+ * for the container to accept connections and then sends representative requests to the node itself over HTTP, a
+ * number of times each. This runs them through the whole stack, i.e. filters, interceptors, controllers, the
+ * {@link BookingService}, Hibernate and the database, and renders their JSPs, so JSP translation, the view resolver
+ * cache and the JIT are all primed by the time the first real request arrives.
+ *
+ * <p>Paths may contain an "{id}" placeholder, which is replaced by the id of a hotel found by the sample search, so
+ * that no particular hotel needs to exist; they are skipped if the catalog is empty. A request answered with a client
+ * error (4xx) has still exercised the stack and is simply not repeated. A server error or I/O failure is retried a few
+ * times before the warm-up is given up.
+ *
+ * <p>{@link #isWarmedUp()} becomes true once warm-up is done, and can be used by a readiness check. It also becomes
+ * true, without warming, if warm-up is disabled or the node cannot be reached within the start timeout, as warm-up
+ * only makes the first requests faster. If a request keeps failing, {@link #isFailed()} becomes true instead.
+ */
+public class StartupWarmer implements ApplicationListener<ContextRefreshedEvent>, ApplicationContextAware,
+		ServletContextAware {
+
+	private static final Log logger = LogFactory.getLog(StartupWarmer.class);
+
+	private static final String ID_PLACEHOLDER = "{id}";
+
+	private static final JsonFactory jsonFactory = new JsonFactory();
+
+	private ApplicationContext applicationContext;
+
+	private ServletContext servletContext;
+
+	private boolean enabled = true;
+
+	private String baseUrl;
+
+	private int port = 8080;
+
+	private List<String> paths = Collections.emptyList();
+
+	private String sampleSearchPath = "/hotels?searchString=&pageSize=1&format=json&fields=id";
+
+	private int iterations = 20;
+
+	private long startTimeout = 60000;
+
+	private int retries = 3;
+
+	private long retryDelay = 1000;
+
+	private volatile boolean started;
+
+	private volatile boolean warmedUp;
+
+	private volatile boolean failed;
+
+	public void setApplicationContext(ApplicationContext applicationContext) {
+		this.applicationContext = applicationContext;
+	}
+
+	public void setServletContext(ServletContext servletContext) {
+		this.servletContext = servletContext;
+	}
+
+	/**
+	 * Whether to warm up at all. If false, the node reports warmed up as soon as the context is refreshed. Default is
+	 * true.
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * The URL of the application on this node, e.g. "http://localhost:8080/travel". Default is localhost on the
+	 * configured {@link #setPort(int) port} with the context path of the web application.
+	 */
+	public void setBaseUrl(String baseUrl) {
+		this.baseUrl = baseUrl;
+	}
+
+	/**
+	 * The port the container listens on, used when no base URL is set. Default is 8080.
+	 */
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	/**
+	 * The request paths, with query strings, to send relative to the base URL. An "{id}" in a path is replaced by the
+	 * id of a hotel returned by the {@link #setSampleSearchPath(String) sample search}.
+	 */
+	public void setPaths(List<String> paths) {
+		this.paths = paths;
+	}
+
+	/**
+	 * The path of a JSON search whose first hotel id replaces "{id}" in the paths. Default is
+	 * "/hotels?searchString=&amp;pageSize=1&amp;format=json&amp;fields=id".
+	 */
+	public void setSampleSearchPath(String sampleSearchPath) {
+		this.sampleSearchPath = sampleSearchPath;
+	}
+
+	/**
+	 * The number of times to send each request. Default is 20.
+	 */
+	public void setIterations(int iterations) {
+		this.iterations = iterations;
+	}
+
+	/**
+	 * How long in milliseconds to wait for the container to accept connections. Default is 60000.
+	 */
+	public void setStartTimeout(long startTimeout) {
+		this.startTimeout = startTimeout;
+	}
+
+	/**
+	 * How many times to retry a request that fails with a server error or an I/O error. Default is 3.
+	 */
+	public void setRetries(int retries) {
+		this.retries = retries;
+	}
+
+	/**
+	 * How long in milliseconds to wait before retrying a failed request. Default is 1000.
+	 */
+	public void setRetryDelay(long retryDelay) {
+		this.retryDelay = retryDelay;
+	}
+
+	/**
+	 * Whether warm-up is done, or was disabled or skipped.
+	 */
+	public boolean isWarmedUp() {
+		return warmedUp;
+	}
+
+	/**
+	 * Whether warm-up has failed.
+	 */
+	public boolean isFailed() {
+		return failed;
+	}
+
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		if (event.getApplicationContext() != applicationContext || started) {
+			return;
+		}
+		started = true;
+		if (!enabled) {
+			logger.info("Startup phase: warm-up disabled");
+			warmedUp = true;
+			return;
+		}
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("startup-warmer-");
+		threadFactory.setDaemon(true);
+		threadFactory.newThread(new Runnable() {
+			public void run() {
+				warmUp();
+			}
+		}).start();
+	}
+
+	private void warmUp() {
+		String url = (baseUrl != null) ? baseUrl : "http://localhost:" + port + servletContext.getContextPath();
+		long start = System.currentTimeMillis();
+		try {
+			if (!awaitConnection(url + "/")) {
+				logger.warn("Could not connect to " + url + " within " + startTimeout
+						+ " ms; skipping warm-up, check the baseUrl or port of the StartupWarmer");
+				warmedUp = true;
+				return;
+			}
+			logger.info("Startup phase: accepting connections after " + (System.currentTimeMillis() - start) + " ms");
+			long warmUpStart = System.currentTimeMillis();
+			List<String> urls = getUrls(url);
+			for (int i = 0; i < iterations && !urls.isEmpty(); i++) {
+				for (Iterator<String> it = urls.iterator(); it.hasNext();) {
+					String requestUrl = it.next();
+					int status = sendWithRetries(requestUrl, null);
+					if (status >= 400) {
+						logger.warn("Warm-up request " + requestUrl + " returned status " + status
+								+ "; not sending it again");
+						it.remove();
+					}
+				}
+			}
+			warmedUp = true;
+			logger.info("Startup phase: warmed up in " + (System.currentTimeMillis() - warmUpStart) + " ms");
+		}
+		catch (Exception ex) {
+			failed = true;
+			logger.error("Warm-up of " + url + " failed after " + (System.currentTimeMillis() - start)
+					+ " ms; the node will not report ready", ex);
+		}
+	}
+
+	private boolean awaitConnection(String url) throws Exception {
+		long deadline = System.currentTimeMillis() + startTimeout;
+		while (true) {
+			try {
+				send(url, null);
+				return true;
+			}
+			catch (ConnectException ex) {
+				if (System.currentTimeMillis() > deadline) {
+					return false;
+				}
+				Thread.sleep(500);
+			}
+		}
+	}
+
+	/**
+	 * The URLs to send, with "{id}" replaced by a sample hotel id; paths with "{id}" are left out if there is none.
+	 */
+	private List<String> getUrls(String url) throws Exception {
+		String sampleId = null;
+		for (String path : paths) {
+			if (path.contains(ID_PLACEHOLDER)) {
+				sampleId = findSampleId(url + sampleSearchPath);
+				break;
+			}
+		}
+		List<String> urls = new ArrayList<String>();
+		for (String path : paths) {
+			if (!path.contains(ID_PLACEHOLDER)) {
+				urls.add(url + path);
+			}
+			else if (sampleId != null) {
+				urls.add(url + path.replace(ID_PLACEHOLDER, sampleId));
+			}
+		}
+		if (sampleId == null && urls.size() < paths.size()) {
+			logger.info("No hotel found by " + sampleSearchPath + "; skipping warm-up paths with " + ID_PLACEHOLDER);
+		}
+		return urls;
+	}
+
+	/**
+	 * The first "id" in the JSON response to the given search, or null if the search failed or found no hotels.
+	 */
+	private String findSampleId(String url) throws Exception {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		if (sendWithRetries(url, body) >= 400) {
+			return null;
+		}
+		JsonParser parser = jsonFactory.createJsonParser(body.toByteArray());
+		try {
+			JsonToken token;
+			while ((token = parser.nextToken()) != null) {
+				if (token == JsonToken.FIELD_NAME && "id".equals(parser.getCurrentName())) {
+					parser.nextToken();
+					return parser.getText();
+				}
+			}
+			return null;
+		}
+		finally {
+			parser.close();
+		}
+	}
+
+	/**
+	 * Send the request, retrying on server and I/O errors, and return the final status.
+	 */
+	private int sendWithRetries(String url, ByteArrayOutputStream body) throws Exception {
+		for (int attempt = 0;; attempt++) {
+			try {
+				int status = send(url, body);
+				if (status < 500 || attempt >= retries) {
+					if (status >= 500) {
+						throw new IOException("Warm-up request " + url + " failed with status " + status + " after "
+								+ (attempt + 1) + " attempts");
+					}
+					return status;
+				}
+			}
+			catch (IOException ex) {
+				if (attempt >= retries) {
+					throw ex;
+				}
+			}
+			Thread.sleep(retryDelay);
+		}
+	}
+
+	/**
+	 * Send the request and return its status, copying a successful response into the body if one is given.
+	 */
+	private int send(String url, ByteArrayOutputStream body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		connection.setInstanceFollowRedirects(false);
+		connection.setConnectTimeout(5000);
+		connection.setReadTimeout(30000);
+		try {
+			int status = connection.getResponseCode();
+			InputStream in = (status < 400) ? connection.getInputStream() : connection.getErrorStream();
+			if (body != null) {
+				body.reset();
+			}
+			if (in != null) {
+				byte[] buffer = new byte[4096];
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					if (body != null && status < 400) {
+						body.write(buffer, 0, read);
+					}
+				}
+				in.close();
+			}
+			return status;
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+}
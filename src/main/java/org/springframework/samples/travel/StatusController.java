@@ -0,0 +1,81 @@
+package org.springframework.samples.travel;
+
+import javax.inject.Inject;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+@Controller
+public class StatusController {
+
+	private StartupWarmer startupWarmer;
+
+	private AdmissionControl admissionControl;
+
+	private SlowRequestLog slowRequestLog;
+
+	private InvalidationBus invalidationBus;
+
+	private DatabaseHealthCheck databaseHealthCheck;
+
+	@Inject
+	public StatusController(StartupWarmer startupWarmer, AdmissionControl admissionControl,
+			SlowRequestLog slowRequestLog, InvalidationBus invalidationBus, DatabaseHealthCheck databaseHealthCheck) {
+		this.startupWarmer = startupWarmer;
+		this.admissionControl = admissionControl;
+		this.slowRequestLog = slowRequestLog;
+		this.invalidationBus = invalidationBus;
+		this.databaseHealthCheck = databaseHealthCheck;
+	}
+
+	/**
+	 * Whether this node should receive traffic: it has warmed up and its database answers. Shedding load does not make
+	 * a node unready, as it can still serve and taking it out of rotation would only move its load onto the others;
+	 * see /status/admission for that.
+	 */
+	@RequestMapping(value = "/status/ready", method = RequestMethod.GET)
+	public ResponseEntity<String> ready() {
+		if (startupWarmer.isFailed()) {
+			return new ResponseEntity<String>("WARM-UP FAILED", HttpStatus.SERVICE_UNAVAILABLE);
+		}
+		if (!startupWarmer.isWarmedUp()) {
+			return new ResponseEntity<String>("WARMING UP", HttpStatus.SERVICE_UNAVAILABLE);
+		}
+		if (!databaseHealthCheck.isHealthy()) {
+			return new ResponseEntity<String>("DATABASE UNAVAILABLE", HttpStatus.SERVICE_UNAVAILABLE);
+		}
+		return new ResponseEntity<String>("READY", HttpStatus.OK);
+	}
+
+	@RequestMapping(value = "/status/admission", method = RequestMethod.GET)
+	public @ResponseBody String admission() {
+		StringBuilder sb = new StringBuilder();
+		for (ConcurrencyLimit limit : admissionControl.getLimits()) {
+			sb.append(limit.getName()).append(" limit=").append(limit.getLimit());
+			sb.append(" inFlight=").append(limit.getInFlight());
+			sb.append(" accepted=").append(limit.getAccepted());
+			sb.append(" rejected=").append(limit.getRejected());
+			sb.append(" shedding=").append(limit.isShedding(admissionControl.getRetryAfter() * 1000L)).append('\n');
+		}
+		return sb.toString();
+	}
+
+	@RequestMapping(value = "/status/traces", method = RequestMethod.GET)
+	public @ResponseBody String traces() {
+		StringBuilder sb = new StringBuilder();
+		for (String trace : slowRequestLog.getRecent()) {
+			sb.append(trace).append("\n\n");
+		}
+		return sb.toString();
+	}
+
+	@RequestMapping(value = "/status/invalidation", method = RequestMethod.GET)
+	public @ResponseBody String invalidation() {
+		return invalidationBus.toString();
+	}
+
+}
@@ -0,0 +1,35 @@
+package org.springframework.samples.travel;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.web.filter.GenericFilterBean;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Records a span for every forward to and include of a JSP, e.g. the template and the header, main and footer pages it
+ * includes, into the current request's trace. Meant to be mapped to the FORWARD and INCLUDE dispatchers only.
+ */
+public class TraceIncludeFilter extends GenericFilterBean {
+
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException,
+			ServletException {
+		String path = (String) request.getAttribute(WebUtils.INCLUDE_SERVLET_PATH_ATTRIBUTE);
+		if (path == null) {
+			path = ((HttpServletRequest) request).getServletPath();
+		}
+		int span = Tracer.enter("jsp", path);
+		try {
+			chain.doFilter(request, response);
+		}
+		finally {
+			Tracer.exit(span);
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+package org.springframework.samples.travel;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Traces each request with a "handler" span around the controller and a "view" span around rendering, and hands the
+ * completed trace to the {@link SlowRequestLog}.
+ */
+public class TraceInterceptor extends HandlerInterceptorAdapter {
+
+	private static final String SPAN_ATTRIBUTE = TraceInterceptor.class.getName() + ".SPAN";
+
+	private final SlowRequestLog slowRequestLog;
+
+	public TraceInterceptor(SlowRequestLog slowRequestLog) {
+		this.slowRequestLog = slowRequestLog;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+			throws Exception {
+		Tracer.begin(request.getMethod(), request.getRequestURI(), request.getQueryString());
+		request.setAttribute(SPAN_ATTRIBUTE, Tracer.enter("handler", ClassUtils.getUserClass(handler)));
+		return true;
+	}
+
+	@Override
+	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+			ModelAndView modelAndView) throws Exception {
+		Integer span = (Integer) request.getAttribute(SPAN_ATTRIBUTE);
+		if (span != null) {
+			Tracer.exit(span);
+		}
+		if (modelAndView != null && modelAndView.hasView()) {
+			Object view = modelAndView.isReference() ? modelAndView.getViewName() : modelAndView.getView();
+			request.setAttribute(SPAN_ATTRIBUTE, Tracer.enter("view", view));
+		}
+		else {
+			request.removeAttribute(SPAN_ATTRIBUTE);
+		}
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) throws Exception {
+		Integer span = (Integer) request.getAttribute(SPAN_ATTRIBUTE);
+		if (span != null) {
+			request.removeAttribute(SPAN_ATTRIBUTE);
+			Tracer.exit(span);
+		}
+		slowRequestLog.record(Tracer.end());
+	}
+
+}
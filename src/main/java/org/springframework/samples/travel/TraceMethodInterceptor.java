@@ -0,0 +1,34 @@
+package org.springframework.samples.travel;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Records a "service" span around each invocation of the advised bean, e.g. around {@link BookingService} calls,
+ * which also covers the transaction commit and Hibernate flush of transactional methods.
+ */
+public class TraceMethodInterceptor implements MethodInterceptor {
+
+	private final Map<Method, String> spanNames = new ConcurrentHashMap<Method, String>();
+
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		Method method = invocation.getMethod();
+		String name = spanNames.get(method);
+		if (name == null) {
+			name = "service " + method.getDeclaringClass().getSimpleName() + "." + method.getName();
+			spanNames.put(method, name);
+		}
+		int span = Tracer.enter(name);
+		try {
+			return invocation.proceed();
+		}
+		finally {
+			Tracer.exit(span);
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+package org.springframework.samples.travel;
+
+/**
+ * Static entry point for recording spans into the current thread's {@link RequestTrace}. Calls made outside of a
+ * traced request are no-ops.
+ */
+public abstract class Tracer {
+
+	private static final int CAPACITY = 128;
+
+	private static final ThreadLocal<RequestTrace> traces = new ThreadLocal<RequestTrace>() {
+		@Override
+		protected RequestTrace initialValue() {
+			return new RequestTrace(CAPACITY);
+		}
+	};
+
+	/**
+	 * Start tracing a request on the current thread, discarding whatever the thread's trace held before.
+	 */
+	public static void begin(String method, String uri, String query) {
+		traces.get().begin(method, uri, query);
+	}
+
+	/**
+	 * Stop tracing the current request.
+	 * @return the completed trace, valid until the next request on this thread begins
+	 */
+	public static RequestTrace end() {
+		RequestTrace trace = traces.get();
+		trace.end();
+		return trace;
+	}
+
+	/**
+	 * Open a span nested in the currently open one.
+	 * @return the span to pass to {@link #exit(int)}
+	 */
+	public static int enter(String name) {
+		return traces.get().enter(name, null);
+	}
+
+	/**
+	 * Open a span of the given kind, e.g. "sql", with a detail, e.g. the statement. The detail is kept by reference and
+	 * only rendered as text if the trace is dumped; a {@link Class} is rendered as its simple name.
+	 * @return the span to pass to {@link #exit(int)}
+	 */
+	public static int enter(String kind, Object detail) {
+		return traces.get().enter(kind, detail);
+	}
+
+	public static void exit(int span) {
+		traces.get().exit(span);
+	}
+
+	/**
+	 * The current thread's trace: that of the request being traced, or else of the last one completed on this thread.
+	 */
+	public static RequestTrace getTrace() {
+		return traces.get();
+	}
+
+	/**
+	 * Count a SQL statement executed by the current request.
+	 */
+	public static void statement() {
+		traces.get().statement();
+	}
+
+}
@@ -0,0 +1,123 @@
+package org.springframework.samples.travel;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * A DataSource that records a "sql" span with the statement text for every statement executed, and a span for every
+ * commit and rollback, into the current request's trace. Statements executed outside of a traced request are not
+ * affected.
+ */
+public class TracingDataSource extends DelegatingDataSource {
+
+	public TracingDataSource(DataSource targetDataSource) {
+		super(targetDataSource);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return proxy(getTargetDataSource().getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return proxy(getTargetDataSource().getConnection(username, password));
+	}
+
+	private static Connection proxy(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new ConnectionHandler(connection));
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException ex) {
+			throw ex.getTargetException();
+		}
+	}
+
+	private static class ConnectionHandler implements InvocationHandler {
+
+		private final Connection target;
+
+		public ConnectionHandler(Connection target) {
+			this.target = target;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.equals("equals")) {
+				return (proxy == args[0]);
+			}
+			if (name.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			}
+			if (name.equals("commit") || name.equals("rollback")) {
+				int span = Tracer.enter(name);
+				try {
+					return TracingDataSource.invoke(target, method, args);
+				}
+				finally {
+					Tracer.exit(span);
+				}
+			}
+			Object result = TracingDataSource.invoke(target, method, args);
+			if (result instanceof Statement) {
+				String sql = (name.startsWith("prepare") && args != null) ? (String) args[0] : null;
+				Class<?> type = (result instanceof CallableStatement) ? CallableStatement.class
+						: (result instanceof PreparedStatement) ? PreparedStatement.class : Statement.class;
+				return Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(), new Class<?>[] { type },
+						new StatementHandler((Statement) result, sql));
+			}
+			return result;
+		}
+	}
+
+	private static class StatementHandler implements InvocationHandler {
+
+		private final Statement target;
+
+		private final String sql;
+
+		public StatementHandler(Statement target, String sql) {
+			this.target = target;
+			this.sql = sql;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.equals("equals")) {
+				return (proxy == args[0]);
+			}
+			if (name.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			}
+			if (!name.startsWith("execute")) {
+				return TracingDataSource.invoke(target, method, args);
+			}
+			String statement = (args != null && args.length > 0 && args[0] instanceof String) ? (String) args[0] : sql;
+			Tracer.statement();
+			int span = Tracer.enter("sql", statement);
+			try {
+				return TracingDataSource.invoke(target, method, args);
+			}
+			finally {
+				Tracer.exit(span);
+			}
+		}
+	}
+
+}
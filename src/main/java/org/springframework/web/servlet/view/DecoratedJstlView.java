@@ -1,10 +1,14 @@
 package org.springframework.web.servlet.view;
 
+import java.util.Collections;
 import java.util.Map;
 
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.view.JstlView;
 
 public class DecoratedJstlView extends JstlView implements TemplateView {
@@ -12,6 +16,9 @@ public class DecoratedJstlView extends JstlView implements TemplateView {
 	protected String title;
 	protected String layoutParam = JspTemplateViewResolver.LAYOUT_PARAM;
 	protected String layoutParamValue = JspTemplateViewResolver.LAYOUT_PARAM_VALUE;
+	protected String fragmentParam = JspTemplateViewResolver.FRAGMENT_PARAM;
+	protected String fragmentId;
+	protected Map<String, String> fragmentPaths = Collections.emptyMap();
 
 	public DecoratedJstlView() {
 	}
@@ -48,6 +55,30 @@ public class DecoratedJstlView extends JstlView implements TemplateView {
 		this.layoutParamValue = layoutParamValue;
 	}
 
+	public String getFragmentParam() {
+		return fragmentParam;
+	}
+
+	public void setFragmentParam(String fragmentParam) {
+		this.fragmentParam = fragmentParam;
+	}
+
+	public String getFragmentId() {
+		return fragmentId;
+	}
+
+	public void setFragmentId(String fragmentId) {
+		this.fragmentId = fragmentId;
+	}
+
+	public Map<String, String> getFragmentPaths() {
+		return fragmentPaths;
+	}
+
+	public void setFragmentPaths(Map<String, String> fragmentPaths) {
+		this.fragmentPaths = fragmentPaths;
+	}
+
 	@Override
 	protected void renderMergedOutputModel(Map<String, Object> model, HttpServletRequest request,
 			HttpServletResponse response) throws Exception {
@@ -56,6 +87,13 @@ public class DecoratedJstlView extends JstlView implements TemplateView {
 			model.put("title", title);
 			System.out.println(this + "render: page:" + getUrl() + " template:" + templatePath);
 		}
+		else {
+			String[] fragments = getRequestedFragments(request);
+			if (fragments.length > 0) {
+				renderFragments(fragments, model, request, response);
+				return;
+			}
+		}
 		super.renderMergedOutputModel(model, request, response);
 	}
 
@@ -74,4 +112,36 @@ public class DecoratedJstlView extends JstlView implements TemplateView {
 				+ request.getParameter(layoutParam));
 		return layoutParamValue == null || !layoutParamValue.equals(request.getParameter(layoutParam));
 	}
+
+	protected String[] getRequestedFragments(HttpServletRequest request) {
+		String fragments = request.getParameter(fragmentParam);
+		return (fragments != null) ? StringUtils.tokenizeToStringArray(fragments, ",") : new String[0];
+	}
+
+	/**
+	 * Render this view's page followed by each additionally requested fragment, in one response.
+	 * A fragment is skipped if it is unknown or if this view already renders it.
+	 */
+	protected void renderFragments(String[] fragments, Map<String, Object> model, HttpServletRequest request,
+			HttpServletResponse response) throws Exception {
+		exposeModelAsRequestAttributes(model, request);
+		exposeHelpers(request);
+		response.setContentType(getContentType());
+		String dispatcherPath = prepareForRendering(request, response);
+		include(dispatcherPath, request, response);
+		for (String fragment : fragments) {
+			String fragmentPath = fragmentPaths.get(fragment);
+			if (fragmentPath != null && !fragment.equals(fragmentId) && !fragmentPath.equals(dispatcherPath)) {
+				include(fragmentPath, request, response);
+			}
+		}
+	}
+
+	private void include(String path, HttpServletRequest request, HttpServletResponse response) throws Exception {
+		RequestDispatcher rd = request.getRequestDispatcher(path);
+		if (rd == null) {
+			throw new ServletException("Could not get RequestDispatcher for [" + path + "]");
+		}
+		rd.include(request, response);
+	}
 }
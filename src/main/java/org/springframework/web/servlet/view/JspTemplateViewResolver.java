@@ -1,5 +1,9 @@
 package org.springframework.web.servlet.view;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.springframework.util.ClassUtils;
 
 public class JspTemplateViewResolver extends InternalResourceViewResolver {
@@ -9,6 +13,8 @@ public class JspTemplateViewResolver extends InternalResourceViewResolver {
 	public static final String LAYOUT_PARAM = "ajax";
 
 	public static final String LAYOUT_PARAM_VALUE = "true";
+
+	public static final String FRAGMENT_PARAM = "fragments";
 	
 	protected String templateName;
 	
@@ -16,6 +22,10 @@ public class JspTemplateViewResolver extends InternalResourceViewResolver {
 	
 	protected String layoutParamValue = LAYOUT_PARAM_VALUE;
 	
+	protected String fragmentParam = FRAGMENT_PARAM;
+	
+	protected Map<String, String> fragments = Collections.emptyMap();
+	
 	public JspTemplateViewResolver(String templateName) {
 		this.templateName = templateName;
 		Class<?> viewClass = jstlPresent ? DecoratedJstlView.class : DecoratedInternalResourceView.class;
@@ -51,6 +61,28 @@ public class JspTemplateViewResolver extends InternalResourceViewResolver {
 		this.layoutParamValue = layoutParamValue;
 	}
 
+	public String getFragmentParam() {
+		return fragmentParam;
+	}
+
+	public void setFragmentParam(String fragmentParam) {
+		this.fragmentParam = fragmentParam;
+	}
+
+	public Map<String, String> getFragments() {
+		return fragments;
+	}
+
+	/**
+	 * Map view names to the id of the root element they render (e.g. "hotels/list" to "hotelResults").
+	 * A "nolayout" request may ask for several of these ids in its fragment parameter to have them
+	 * rendered together in one response. When more than one view renders the same id, the first
+	 * entry is used for additional fragments.
+	 */
+	public void setFragments(Map<String, String> fragments) {
+		this.fragments = fragments;
+	}
+
 	@Override
 	protected AbstractUrlBasedView buildView(String viewName) throws Exception {
 		TemplateView view = (TemplateView) super.buildView(viewName);
@@ -59,9 +91,22 @@ public class JspTemplateViewResolver extends InternalResourceViewResolver {
 		view.setTitle(getTitle(viewName));
 		view.setLayoutParam(layoutParam);
 		view.setLayoutParamValue(layoutParamValue);
+		view.setFragmentParam(fragmentParam);
+		view.setFragmentId(fragments.get(preprocessViewName(viewName)));
+		view.setFragmentPaths(getFragmentPaths());
 		return (AbstractUrlBasedView)view;
 	}
 	
+	protected Map<String, String> getFragmentPaths() {
+		Map<String, String> fragmentPaths = new LinkedHashMap<String, String>();
+		for (Map.Entry<String, String> entry : fragments.entrySet()) {
+			if (!fragmentPaths.containsKey(entry.getValue())) {
+				fragmentPaths.put(entry.getValue(), getPrefix() + entry.getKey() + getSuffix());
+			}
+		}
+		return fragmentPaths;
+	}
+	
 	protected String getTitle(String viewName) {
 		return "view.title." + preprocessViewName(viewName).replace('/', '.');
 	}
@@ -1,8 +1,13 @@
 package org.springframework.web.servlet.view;
 
+import java.util.Map;
+
 public interface TemplateView {
 	void setTemplatePath(String templateName);
 	void setTitle(String title);
 	void setLayoutParam(String paramName);
 	void setLayoutParamValue(String paramValue);	
-}
+	void setFragmentParam(String paramName);
+	void setFragmentId(String fragmentId);
+	void setFragmentPaths(Map<String, String> fragmentPaths);
+}
\ No newline at end of file
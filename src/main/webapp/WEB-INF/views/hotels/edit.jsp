@@ -7,6 +7,7 @@
 	</spring:url>
 	<form:form modelAttribute="hotel" action="${hotelsUrl}" method="post" cssClass="inline ajaxForm">
 	    <span><form:errors path="*"/></span>
+	    <input type="hidden" name="fragments" value="hotelDetails,hotelResults"/>
 		<fieldset>
 			<legend>Edit Hotel</legend>
 			<div>
@@ -2,6 +2,7 @@
 <%@ taglib prefix="fn" uri="http://java.sun.com/jsp/jstl/functions"%>
 
 <div id="hotelResults">
+<input type="hidden" id="resultsPage" value="${searchCriteria.page}"/>
 <c:if test="${empty hotelList}">
 	<p>No hotels. Please, change your search criteria.</p>
 </c:if>
@@ -14,35 +14,39 @@
 
 <script type="text/javascript">
 	$(document).ready(function() {
-		var ajaxify = function() {
-			$(".ajaxForm").submit(function() {
-				var data = $(this).serialize() + "&htmlFormat=nolayout";
-				$.ajax({
-					type : $(this).attr("method"),
-					url : $(this).attr("action"), 
-					data : data, 
-					success : function(data) {
-						var id = $(data).attr("id");
-						$("#" + id).replaceWith(data);
-						ajaxify();
-					}
-				});
-				return false;  
+		// A response may carry several fragments; each replaces the element with the same id.
+		// If two fragments share an id, the first one (rendered by the handler's own view) wins.
+		var swapFragments = function(data) {
+			var replaced = {};
+			$("<div/>").html(data).children("[id]").each(function() {
+				if (!replaced[this.id]) {
+					replaced[this.id] = true;
+					$("#" + this.id).replaceWith(this);
+				}
 			});
-			$(".ajaxLink").click(function() {
-				$.ajax({
-					type : 'GET',
-					url : $(this).attr("href"),
-					data : "htmlFormat=nolayout",
-					success : function(data) {
-						var id = $(data).attr("id");
-						$("#" + id).replaceWith(data);
-						ajaxify();
-					}
-				});
-				return false;
+		};
+		$(".ajaxForm").live("submit", function() {
+			var data = $(this).serialize() + "&htmlFormat=nolayout";
+			var fragments = $(this).find("input[name='fragments']").val();
+			if (fragments && fragments.indexOf("hotelResults") != -1) {
+				data += "&" + $("#searchForm").serialize() + "&page=" + ($("#resultsPage").val() || 0);
+			}
+			$.ajax({
+				type : $(this).attr("method"),
+				url : $(this).attr("action"), 
+				data : data, 
+				success : swapFragments
 			});
-		}
-		ajaxify();
+			return false;  
+		});
+		$(".ajaxLink").live("click", function() {
+			$.ajax({
+				type : 'GET',
+				url : $(this).attr("href"),
+				data : "htmlFormat=nolayout",
+				success : swapFragments
+			});
+			return false;
+		});
 	});
 </script>
@@ -0,0 +1,144 @@
+package org.springframework.samples.travel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+public class HotelRankerTest {
+
+	@Test
+	public void nameOutweighsCityAddressAndZip() {
+		HotelRanker ranker = new HotelRanker(terms("park"), 0, 10);
+		ranker.offer(1L, "Zip Inn", "Springfield", "1 Main Street", "park");
+		ranker.offer(2L, "Address Inn", "Springfield", "park", "12345");
+		ranker.offer(3L, "City Inn", "park", "1 Main Street", "12345");
+		ranker.offer(4L, "park", "Springfield", "1 Main Street", "12345");
+		assertEquals(Arrays.asList(4L, 3L, 2L, 1L), ranker.getPage());
+	}
+
+	@Test
+	public void exactBeatsWordPrefixBeatsSubstring() {
+		HotelRanker ranker = new HotelRanker(terms("mar"), 0, 10);
+		ranker.offer(1L, "Hotel Omar", null, null, null);
+		ranker.offer(2L, "Hotel Marriott", null, null, null);
+		ranker.offer(3L, "Mar", null, null, null);
+		assertEquals(Arrays.asList(3L, 2L, 1L), ranker.getPage());
+	}
+
+	@Test
+	public void wordPrefixInNameBeatsExactZip() {
+		HotelRanker ranker = new HotelRanker(terms("100"), 0, 10);
+		ranker.offer(1L, "Hotel", null, null, "100");
+		ranker.offer(2L, "100 Rooms", null, null, null);
+		assertEquals(Arrays.asList(2L, 1L), ranker.getPage());
+	}
+
+	@Test
+	public void scoresAddUpOverTerms() {
+		HotelRanker ranker = new HotelRanker(terms("marriott", "atlanta"), 0, 10);
+		ranker.offer(1L, "Marriott Downtown", "San Francisco", null, null);
+		ranker.offer(2L, "Marriott Courtyard", "Atlanta", null, null);
+		ranker.offer(3L, "Doubletree", "Atlanta", null, null);
+		assertEquals(Arrays.asList(2L, 1L, 3L), ranker.getPage());
+	}
+
+	@Test
+	public void wildcardMatchesAnyCharacters() {
+		HotelRanker ranker = new HotelRanker(terms("ma*t"), 0, 10);
+		ranker.offer(1L, "Grand Marriott Hotel", null, null, null);
+		ranker.offer(2L, "Marriott", null, null, null);
+		ranker.offer(3L, "Hotel Omaha West", null, null, null);
+		assertEquals(Arrays.asList(2L, 1L, 3L), ranker.getPage());
+	}
+
+	@Test
+	public void leadingWildcardMatchesWholeField() {
+		HotelRanker ranker = new HotelRanker(terms("*ark"), 0, 10);
+		ranker.offer(1L, "Parkside", null, null, null);
+		ranker.offer(2L, "Park", null, null, null);
+		assertEquals(Arrays.asList(2L, 1L), ranker.getPage());
+	}
+
+	@Test
+	public void tiesAreBrokenByNameThenId() {
+		HotelRanker ranker = new HotelRanker(terms("inn"), 0, 10);
+		ranker.offer(3L, "B Inn", null, null, null);
+		ranker.offer(2L, "A Inn", null, null, null);
+		ranker.offer(1L, "B Inn", null, null, null);
+		assertEquals(Arrays.asList(2L, 1L, 3L), ranker.getPage());
+	}
+
+	@Test
+	public void pagesAreStableAndDisjointWhateverTheOfferOrder() {
+		List<Long> ids = new ArrayList<Long>();
+		for (long id = 1; id <= 25; id++) {
+			ids.add(id);
+		}
+		List<Long> expected = null;
+		for (int shuffle = 0; shuffle < 5; shuffle++) {
+			Collections.shuffle(ids);
+			List<Long> all = new ArrayList<Long>();
+			for (int page = 0; page < 3; page++) {
+				HotelRanker ranker = new HotelRanker(terms("hotel"), page, 10);
+				for (Long id : ids) {
+					// three distinct scores and only four distinct names, so most hotels tie
+					String name = (id % 3 == 0) ? "Hotel" : (id % 3 == 1) ? "Grand Hotel" : "Hotels " + (char) ('A' + id % 2);
+					ranker.offer(id, name, null, null, null);
+				}
+				List<Long> pageIds = ranker.getPage();
+				assertEquals(page < 2 ? 10 : 5, pageIds.size());
+				all.addAll(pageIds);
+			}
+			assertEquals(25, all.size());
+			assertEquals(25, new HashSet<Long>(all).size());
+			if (expected == null) {
+				expected = all;
+			}
+			assertEquals(expected, all);
+		}
+	}
+
+	@Test
+	public void pageBeyondTheMatchesIsEmpty() {
+		HotelRanker ranker = new HotelRanker(terms("inn"), 5, 10);
+		ranker.offer(1L, "Inn", null, null, null);
+		assertTrue(ranker.getPage().isEmpty());
+	}
+
+	@Test
+	public void negativePageIsTreatedAsFirst() {
+		HotelRanker ranker = new HotelRanker(terms("inn"), -1, 2);
+		ranker.offer(1L, "C Inn", null, null, null);
+		ranker.offer(2L, "B Inn", null, null, null);
+		ranker.offer(3L, "A Inn", null, null, null);
+		assertEquals(Arrays.asList(3L, 2L), ranker.getPage());
+	}
+
+	@Test
+	public void overflowingPageDoesNotFail() {
+		HotelRanker ranker = new HotelRanker(terms("inn"), Integer.MAX_VALUE, 10);
+		ranker.offer(1L, "Inn", null, null, null);
+		ranker.offer(2L, "Inn", null, null, null);
+		assertTrue(ranker.getPage().isEmpty());
+	}
+
+	@Test
+	public void nonPositivePageSizeReturnsAllMatches() {
+		HotelRanker ranker = new HotelRanker(terms("inn"), 3, -5);
+		ranker.offer(1L, "B Inn", null, null, null);
+		ranker.offer(2L, "A Inn", null, null, null);
+		assertEquals(Arrays.asList(2L, 1L), ranker.getPage());
+	}
+
+	private static List<String> terms(String... terms) {
+		return Arrays.asList(terms);
+	}
+
+}
@@ -0,0 +1,91 @@
+package org.springframework.samples.travel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks that {@link JpaBookingService#updateHotel(Hotel)} publishes a change only once its transaction commits.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:/META-INF/spring/root-context.xml")
+public class JpaBookingServiceInvalidationTest {
+
+	@Inject
+	private EntityManagerFactory entityManagerFactory;
+
+	@Inject
+	private PlatformTransactionManager transactionManager;
+
+	private JpaBookingService bookingService;
+
+	private RecordingInvalidationBus invalidationBus;
+
+	private TransactionTemplate transactionTemplate;
+
+	@Before
+	public void setUp() {
+		bookingService = new JpaBookingService();
+		bookingService.setEntityManager(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+		invalidationBus = new RecordingInvalidationBus();
+		bookingService.setInvalidationBus(invalidationBus);
+		transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@Test
+	public void publishesAfterCommit() {
+		transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				Hotel hotel = bookingService.findHotelById(1L);
+				hotel.setName("Westin Diplomat Resort");
+				bookingService.updateHotel(hotel);
+				assertTrue("published before commit", invalidationBus.getPublished().isEmpty());
+			}
+		});
+		assertEquals(Arrays.asList(1L), invalidationBus.getPublished());
+	}
+
+	@Test
+	public void doesNotPublishOnRollback() {
+		transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				Hotel hotel = bookingService.findHotelById(2L);
+				hotel.setName("Rolled Back");
+				bookingService.updateHotel(hotel);
+				status.setRollbackOnly();
+			}
+		});
+		assertTrue(invalidationBus.getPublished().isEmpty());
+	}
+
+	private static class RecordingInvalidationBus extends AbstractInvalidationBus {
+
+		private final List<Long> published = new ArrayList<Long>();
+
+		public void publish(Long hotelId) {
+			published.add(hotelId);
+		}
+
+		public List<Long> getPublished() {
+			return published;
+		}
+	}
+
+}
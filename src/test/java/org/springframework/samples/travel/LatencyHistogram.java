@@ -0,0 +1,80 @@
+package org.springframework.samples.travel;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram in the style of HdrHistogram: values in microseconds are counted in log-linear
+ * buckets (64 linear sub-buckets per power of two), which bounds the relative error of reported percentiles to about
+ * 1.5% over the whole range up to days.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 6;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final int MAX_MAGNITUDE = 40;
+
+	private final AtomicLongArray counts = new AtomicLongArray(2 * SUB_BUCKETS + MAX_MAGNITUDE * SUB_BUCKETS);
+
+	private final AtomicLong total = new AtomicLong();
+
+	private final AtomicLong max = new AtomicLong();
+
+	public void recordNanos(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		counts.incrementAndGet(indexOf(micros));
+		total.incrementAndGet();
+		long current;
+		while (micros > (current = max.get()) && !max.compareAndSet(current, micros)) {
+		}
+	}
+
+	public long getCount() {
+		return total.get();
+	}
+
+	public long getMaxMicros() {
+		return max.get();
+	}
+
+	/**
+	 * The value in microseconds at or below which the given percentage of the recorded values fall.
+	 */
+	public long getPercentileMicros(double percentile) {
+		long count = total.get();
+		if (count == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= target) {
+				return Math.min(highestValueAt(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	private static int indexOf(long value) {
+		int magnitude = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+		if (magnitude == 0) {
+			return (int) value;
+		}
+		magnitude = Math.min(magnitude, MAX_MAGNITUDE);
+		int subBucket = (int) Math.min(value >> magnitude, 2 * SUB_BUCKETS - 1);
+		return SUB_BUCKETS + magnitude * SUB_BUCKETS + (subBucket - SUB_BUCKETS);
+	}
+
+	private static long highestValueAt(int index) {
+		if (index < 2 * SUB_BUCKETS) {
+			return index;
+		}
+		int magnitude = index / SUB_BUCKETS - 1;
+		long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << magnitude) - 1;
+	}
+
+}
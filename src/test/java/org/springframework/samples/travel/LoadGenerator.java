@@ -0,0 +1,383 @@
+package org.springframework.samples.travel;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.io.FileSystemResourceLoader;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockRequestDispatcher;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.ConfigurableWebApplicationContext;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.XmlWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+/**
+ * A load generator that boots the application with its real root and servlet contexts and drives requests through the
+ * {@link DispatcherServlet}, at a target rate and with a configurable mix of endpoints, reporting throughput and
+ * latency percentiles per endpoint.
+ *
+ * <p>Run with {@code mvn -Ploadtest test}. Settings are read from system properties:
+ * <ul>
+ * <li>loadtest.hotels - number of synthetic hotels to seed (default 10000)
+ * <li>loadtest.bookings - number of synthetic bookings to seed (default 50000)
+ * <li>loadtest.rate - target requests per second (default 500)
+ * <li>loadtest.threads - number of worker threads (default 16)
+ * <li>loadtest.warmup - seconds of unrecorded warm-up traffic (default 10)
+ * <li>loadtest.duration - seconds of recorded traffic (default 30)
+ * <li>loadtest.mix - relative endpoint weights (default "search=30,show=15,fragment=15,json=35,edit=5")
+ * </ul>
+ *
+ * <p>Requests are scheduled open loop: each worker sends at fixed intervals and latency is measured from the intended
+ * send time, so a stalled server shows up in the percentiles instead of slowing the generator down. JSPs are not
+ * rendered, as there is no JSP engine; HTML requests are measured up to the forward to the view.
+ */
+public class LoadGenerator {
+
+	private static final String[] BRANDS = { "Marriott", "Hilton", "Westin", "Hyatt", "Sheraton", "Radisson",
+			"Holiday Inn", "Best Western", "Doubletree", "Ritz Carlton", "Four Seasons", "Comfort Inn" };
+
+	private static final String[][] CITIES = { { "Atlanta", "GA" }, { "Boston", "MA" }, { "Chicago", "IL" },
+			{ "Dallas", "TX" }, { "Denver", "CO" }, { "Hollywood", "FL" }, { "Miami", "FL" }, { "New York", "NY" },
+			{ "Palm Bay", "FL" }, { "Phoenix", "AZ" }, { "San Francisco", "CA" }, { "Seattle", "WA" },
+			{ "Barcelona", "Catalunya" }, { "Lausanne", "Vaud" }, { "London", "England" }, { "Melbourne", "Victoria" },
+			{ "Paris", "Ile de France" }, { "Sydney", "NSW" }, { "Tokyo", "Kanto" }, { "Toronto", "ON" } };
+
+	private static final String[] STREETS = { "Ocean Drive", "Main Street", "Peachtree Road", "Park Avenue",
+			"Broadway", "Market Street", "Elm Street", "Harbor Boulevard" };
+
+	private final MockServletContext servletContext;
+
+	private final XmlWebApplicationContext rootContext;
+
+	private final DispatcherServlet servlet;
+
+	private final MockServletConfig servletConfig;
+
+	private final EntityManagerFactory entityManagerFactory;
+
+	private final List<Long> hotelIds = new ArrayList<Long>();
+
+	private final List<String> searchStrings = new ArrayList<String>();
+
+	private final Map<String, Integer> mix;
+
+	private final Map<String, EndpointStats> stats = new LinkedHashMap<String, EndpointStats>();
+
+	private volatile boolean recording;
+
+	public LoadGenerator(Map<String, Integer> mix) throws Exception {
+		this.mix = mix;
+		for (String endpoint : mix.keySet()) {
+			stats.put(endpoint, new EndpointStats());
+		}
+
+		servletContext = new MockServletContext("src/main/webapp", new FileSystemResourceLoader()) {
+			@Override
+			public RequestDispatcher getNamedDispatcher(String path) {
+				return "default".equals(path) ? new MockRequestDispatcher(path) : super.getNamedDispatcher(path);
+			}
+		};
+
+		rootContext = new XmlWebApplicationContext();
+		rootContext.setServletContext(servletContext);
+		rootContext.setConfigLocation("classpath:/META-INF/spring/root-context.xml");
+		rootContext.addBeanFactoryPostProcessor(new BeanFactoryPostProcessor() {
+			public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+				beanFactory.getBeanDefinition("entityManagerFactory").getPropertyValues()
+						.addPropertyValue("jpaPropertyMap", Collections.singletonMap("hibernate.show_sql", "false"));
+			}
+		});
+		rootContext.refresh();
+		servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, rootContext);
+		entityManagerFactory = rootContext.getBean(EntityManagerFactory.class);
+
+		servlet = new DispatcherServlet() {
+			@Override
+			protected void postProcessWebApplicationContext(ConfigurableWebApplicationContext wac) {
+				// there is no container to send warm-up requests to
+				wac.addBeanFactoryPostProcessor(new BeanFactoryPostProcessor() {
+					public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+						beanFactory.getBeanDefinition("startupWarmer").getPropertyValues()
+								.addPropertyValue("enabled", "false");
+					}
+				});
+			}
+		};
+		MockServletConfig servletConfig = new MockServletConfig(servletContext, "travel");
+		servletConfig.addInitParameter("contextConfigLocation", "classpath:/META-INF/spring/travel/servlet-context.xml");
+		this.servletConfig = servletConfig;
+	}
+
+	/**
+	 * Insert synthetic hotels, users and bookings, then start the DispatcherServlet.
+	 */
+	public void seed(int hotels, int bookings) throws Exception {
+		long start = System.currentTimeMillis();
+		Random random = new Random(42);
+		EntityManager em = entityManagerFactory.createEntityManager();
+		try {
+			em.getTransaction().begin();
+			List<Hotel> created = new ArrayList<Hotel>(hotels);
+			for (int i = 0; i < hotels; i++) {
+				String[] city = CITIES[random.nextInt(CITIES.length)];
+				Hotel hotel = new Hotel();
+				hotel.setName(BRANDS[random.nextInt(BRANDS.length)] + " " + city[0] + " " + (i % 7 == 0 ? "Airport" : "Downtown"));
+				hotel.setAddress((1 + random.nextInt(9999)) + " " + STREETS[random.nextInt(STREETS.length)]);
+				hotel.setCity(city[0]);
+				hotel.setState(city[1]);
+				hotel.setZip(String.valueOf(10000 + random.nextInt(89999)));
+				hotel.setCountry("USA");
+				hotel.setPrice(new BigDecimal(50 + random.nextInt(450)));
+				em.persist(hotel);
+				created.add(hotel);
+				if (i % 500 == 499) {
+					em.flush();
+					em.clear();
+				}
+			}
+			em.flush();
+			em.clear();
+			List<User> users = new ArrayList<User>();
+			for (int i = 0; i < 500; i++) {
+				User user = new User("user" + i, "password", "User " + i);
+				em.persist(user);
+				users.add(user);
+			}
+			em.getTransaction().commit();
+
+			em.getTransaction().begin();
+			Calendar calendar = Calendar.getInstance();
+			for (int i = 0; i < bookings; i++) {
+				Hotel hotel = em.getReference(Hotel.class, created.get(random.nextInt(created.size())).getId());
+				User user = em.getReference(User.class, users.get(random.nextInt(users.size())).getUsername());
+				Booking booking = new Booking(hotel, user);
+				calendar.setTimeInMillis(System.currentTimeMillis());
+				calendar.add(Calendar.DAY_OF_MONTH, -random.nextInt(730));
+				booking.setCheckinDate(calendar.getTime());
+				calendar.add(Calendar.DAY_OF_MONTH, 1 + random.nextInt(7));
+				booking.setCheckoutDate(calendar.getTime());
+				booking.setCreditCard("1111222233334444");
+				booking.setCreditCardName(user.getName());
+				booking.setBeds(1 + random.nextInt(2));
+				em.persist(booking);
+				if (i % 500 == 499) {
+					em.flush();
+					em.clear();
+				}
+			}
+			em.getTransaction().commit();
+
+			for (Object id : em.createQuery("select h.id from Hotel h").getResultList()) {
+				hotelIds.add((Long) id);
+			}
+		}
+		finally {
+			em.close();
+		}
+		searchStrings.add("");
+		for (String brand : BRANDS) {
+			searchStrings.add(brand.toLowerCase());
+		}
+		for (String[] city : CITIES) {
+			searchStrings.add(city[0].toLowerCase());
+			searchStrings.add(city[0].substring(0, 3).toLowerCase() + "*");
+		}
+		System.out.println("Seeded " + hotels + " hotels and " + bookings + " bookings in "
+				+ (System.currentTimeMillis() - start) + " ms");
+
+		start = System.currentTimeMillis();
+		servlet.init(servletConfig);
+		System.out.println("Started DispatcherServlet in " + (System.currentTimeMillis() - start) + " ms");
+	}
+
+	/**
+	 * Send requests at the given total rate for the warm-up period, then record for the given duration.
+	 */
+	public void run(final int rate, final int threads, int warmupSeconds, int durationSeconds) throws Exception {
+		final long intervalNanos = 1000000000L * threads / rate;
+		final long startNanos = System.nanoTime();
+		final long endNanos = startNanos + (warmupSeconds + durationSeconds) * 1000000000L;
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			final long offset = intervalNanos * t / threads;
+			final Random random = new Random(t);
+			new Thread("loadgen-" + t) {
+				@Override
+				public void run() {
+					try {
+						long intended = startNanos + offset;
+						while (intended < endNanos) {
+							long wait = intended - System.nanoTime();
+							if (wait > 0) {
+								Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+							}
+							String endpoint = pickEndpoint(random);
+							int status = send(endpoint, random);
+							if (recording) {
+								stats.get(endpoint).record(System.nanoTime() - intended, status);
+							}
+							intended += intervalNanos;
+						}
+					}
+					catch (Exception ex) {
+						ex.printStackTrace();
+					}
+					finally {
+						done.countDown();
+					}
+				}
+			}.start();
+		}
+		Thread.sleep(warmupSeconds * 1000L);
+		System.out.println("Warm-up done, recording for " + durationSeconds + " s");
+		recording = true;
+		done.await();
+		recording = false;
+		report(durationSeconds);
+	}
+
+	public void shutdown() {
+		servlet.destroy();
+		rootContext.close();
+	}
+
+	private String pickEndpoint(Random random) {
+		int total = 0;
+		for (int weight : mix.values()) {
+			total += weight;
+		}
+		int pick = random.nextInt(total);
+		for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+			pick -= entry.getValue();
+			if (pick < 0) {
+				return entry.getKey();
+			}
+		}
+		throw new IllegalStateException();
+	}
+
+	private int send(String endpoint, Random random) {
+		Long hotelId = hotelIds.get(random.nextInt(hotelIds.size()));
+		String searchString = searchStrings.get(random.nextInt(searchStrings.size()));
+		MockHttpServletRequest request;
+		if ("search".equals(endpoint)) {
+			request = new MockHttpServletRequest(servletContext, "GET", "/hotels");
+			request.addParameter("searchString", searchString);
+			request.addParameter("pageSize", "10");
+			request.addParameter("page", String.valueOf(random.nextInt(3)));
+		}
+		else if ("show".equals(endpoint)) {
+			request = new MockHttpServletRequest(servletContext, "GET", "/hotels/" + hotelId);
+		}
+		else if ("fragment".equals(endpoint)) {
+			request = new MockHttpServletRequest(servletContext, "GET", "/hotels");
+			request.addParameter("searchString", searchString);
+			request.addParameter("pageSize", "10");
+			request.addParameter("htmlFormat", "nolayout");
+			request.addHeader("X-Requested-With", "XMLHttpRequest");
+		}
+		else if ("json".equals(endpoint)) {
+			boolean list = random.nextBoolean();
+			request = new MockHttpServletRequest(servletContext, "GET", list ? "/hotels" : "/hotels/" + hotelId);
+			if (list) {
+				request.addParameter("searchString", searchString);
+				request.addParameter("pageSize", "20");
+				request.addParameter("fields", "id,name,city,price");
+			}
+			request.addHeader("Accept", "application/json");
+		}
+		else if ("edit".equals(endpoint)) {
+			request = new MockHttpServletRequest(servletContext, "POST", "/hotels/" + hotelId);
+			request.addParameter("name", BRANDS[random.nextInt(BRANDS.length)] + " Renovated");
+			request.addParameter("city", CITIES[random.nextInt(CITIES.length)][0]);
+			request.addParameter("htmlFormat", "nolayout");
+			request.addParameter("fragments", "hotelDetails,hotelResults");
+			request.addParameter("searchString", searchString);
+			request.addParameter("pageSize", "10");
+			request.addHeader("X-Requested-With", "XMLHttpRequest");
+		}
+		else {
+			throw new IllegalArgumentException("Unknown endpoint '" + endpoint + "'");
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			servlet.service(request, response);
+		}
+		catch (Exception ex) {
+			return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+		}
+		return response.getStatus();
+	}
+
+	private void report(int durationSeconds) {
+		System.out.println();
+		System.out.println(String.format("%-10s %9s %9s %8s %8s %9s %9s %9s %9s %9s", "endpoint", "requests", "req/s",
+				"rejected", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+		for (Map.Entry<String, EndpointStats> entry : stats.entrySet()) {
+			EndpointStats s = entry.getValue();
+			LatencyHistogram h = s.histogram;
+			System.out.println(String.format("%-10s %9d %9.1f %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f", entry.getKey(),
+					h.getCount(), h.getCount() / (double) durationSeconds, s.rejected.get(), s.errors.get(),
+					h.getPercentileMicros(50) / 1000.0, h.getPercentileMicros(90) / 1000.0,
+					h.getPercentileMicros(99) / 1000.0, h.getPercentileMicros(99.9) / 1000.0,
+					h.getMaxMicros() / 1000.0));
+		}
+	}
+
+	private static class EndpointStats {
+
+		private final LatencyHistogram histogram = new LatencyHistogram();
+
+		private final AtomicLong rejected = new AtomicLong();
+
+		private final AtomicLong errors = new AtomicLong();
+
+		public void record(long nanos, int status) {
+			histogram.recordNanos(nanos);
+			if (status == HttpServletResponse.SC_SERVICE_UNAVAILABLE) {
+				rejected.incrementAndGet();
+			}
+			else if (status >= 400) {
+				errors.incrementAndGet();
+			}
+		}
+	}
+
+	private static Map<String, Integer> parseMix(String mix) {
+		Map<String, Integer> weights = new LinkedHashMap<String, Integer>();
+		for (String entry : StringUtils.tokenizeToStringArray(mix, ",")) {
+			String[] pair = StringUtils.split(entry, "=");
+			weights.put(pair[0].trim(), Integer.valueOf(pair[1].trim()));
+		}
+		return weights;
+	}
+
+	public static void main(String[] args) throws Exception {
+		LoadGenerator generator = new LoadGenerator(parseMix(System.getProperty("loadtest.mix",
+				"search=30,show=15,fragment=15,json=35,edit=5")));
+		generator.seed(Integer.getInteger("loadtest.hotels", 10000), Integer.getInteger("loadtest.bookings", 50000));
+		generator.run(Integer.getInteger("loadtest.rate", 500), Integer.getInteger("loadtest.threads", 16),
+				Integer.getInteger("loadtest.warmup", 10), Integer.getInteger("loadtest.duration", 30));
+		generator.shutdown();
+	}
+
+}
@@ -0,0 +1,104 @@
+package org.springframework.samples.travel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs two nodes' buses in one JVM on the same multicast group and port, kept on this host with a time to live of 0.
+ */
+public class MulticastInvalidationBusTest {
+
+	private MulticastInvalidationBus sender;
+
+	private MulticastInvalidationBus receiver;
+
+	private final RecordingListener senderListener = new RecordingListener();
+
+	private final RecordingListener receiverListener = new RecordingListener();
+
+	@Before
+	public void setUp() throws Exception {
+		int port = 40000 + new Random().nextInt(10000);
+		sender = createBus(port, senderListener);
+		receiver = createBus(port, receiverListener);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		sender.destroy();
+		receiver.destroy();
+	}
+
+	@Test
+	public void publishedIdsReachTheOtherNodeCoalesced() throws Exception {
+		sender.publish(1L);
+		sender.publish(2L);
+		sender.publish(1L);
+		assertEquals(Arrays.asList(1L, 2L, 1L), senderListener.getIds());
+
+		Thread.sleep(50);
+		sender.flush();
+		receiverListener.await(1);
+
+		assertEquals(Arrays.asList(1L, 2L), receiverListener.getIds());
+		assertEquals(3, sender.getPublished());
+		assertEquals(1, sender.getCoalesced());
+		assertEquals(1, sender.getSent());
+		assertEquals(0, sender.getReceived());
+		assertEquals(1, receiver.getReceived());
+		assertTrue("lag " + receiver.getMaxLag() + " ms", receiver.getMaxLag() >= 50);
+		assertTrue(receiver.getAverageLag() >= 50);
+	}
+
+	@Test
+	public void nothingIsSentWithoutPublishedIds() throws Exception {
+		sender.flush();
+		assertEquals(0, sender.getSent());
+	}
+
+	private MulticastInvalidationBus createBus(int port, InvalidationListener listener) throws Exception {
+		MulticastInvalidationBus bus = new MulticastInvalidationBus();
+		bus.setPort(port);
+		bus.setTimeToLive(0);
+		// flushed explicitly by the tests
+		bus.setFlushInterval(60000);
+		bus.addListener(listener);
+		bus.afterPropertiesSet();
+		return bus;
+	}
+
+	private static class RecordingListener implements InvalidationListener {
+
+		private final List<Long> ids = new ArrayList<Long>();
+
+		private int notifications;
+
+		public synchronized void invalidate(Collection<Long> hotelIds) {
+			ids.addAll(hotelIds);
+			notifications++;
+			notifyAll();
+		}
+
+		public synchronized List<Long> getIds() {
+			return new ArrayList<Long>(ids);
+		}
+
+		public synchronized void await(int count) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 5000;
+			while (notifications < count && System.currentTimeMillis() < deadline) {
+				wait(100);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+package org.springframework.samples.travel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.RequestDispatcher;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.io.FileSystemResourceLoader;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockRequestDispatcher;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.ConfigurableWebApplicationContext;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.support.XmlWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+/**
+ * Dispatches requests through the application's DispatcherServlet and counts the SQL statements each one executes,
+ * as recorded in its {@link RequestTrace}, to check that every read runs at most once per request. The second-level
+ * cache is cleared before each test, so the counts do not depend on what earlier tests loaded.
+ */
+public class RequestMemoizingInterceptorTest {
+
+	private static MockServletContext servletContext;
+
+	private static XmlWebApplicationContext rootContext;
+
+	private static DispatcherServlet servlet;
+
+	private BookingService bookingService;
+
+	private RequestMemoizingInterceptor interceptor;
+
+	private long hits;
+
+	private long misses;
+
+	@BeforeClass
+	public static void startServlet() throws Exception {
+		servletContext = new MockServletContext("src/main/webapp", new FileSystemResourceLoader()) {
+			@Override
+			public RequestDispatcher getNamedDispatcher(String path) {
+				return "default".equals(path) ? new MockRequestDispatcher(path) : super.getNamedDispatcher(path);
+			}
+		};
+		rootContext = new XmlWebApplicationContext();
+		rootContext.setServletContext(servletContext);
+		rootContext.setConfigLocation("classpath:/META-INF/spring/root-context.xml");
+		rootContext.refresh();
+		servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, rootContext);
+
+		servlet = new DispatcherServlet() {
+			@Override
+			protected void postProcessWebApplicationContext(ConfigurableWebApplicationContext wac) {
+				// there is no container to send warm-up requests to
+				wac.addBeanFactoryPostProcessor(new BeanFactoryPostProcessor() {
+					public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+						beanFactory.getBeanDefinition("startupWarmer").getPropertyValues()
+								.addPropertyValue("enabled", "false");
+					}
+				});
+			}
+		};
+		MockServletConfig servletConfig = new MockServletConfig(servletContext, "travel");
+		servletConfig.addInitParameter("contextConfigLocation", "classpath:/META-INF/spring/travel/servlet-context.xml");
+		servlet.init(servletConfig);
+	}
+
+	@AfterClass
+	public static void stopServlet() {
+		servlet.destroy();
+		rootContext.close();
+	}
+
+	@Before
+	public void setUp() {
+		WebApplicationContext context = servlet.getWebApplicationContext();
+		context.getBean(EntityManagerFactory.class).getCache().evictAll();
+		bookingService = context.getBean(BookingService.class);
+		interceptor = context.getBean(RequestMemoizingInterceptor.class);
+		hits = interceptor.getHits();
+		misses = interceptor.getMisses();
+	}
+
+	@Test
+	public void showReadsTheHotelOnce() throws Exception {
+		MockHttpServletResponse response = service(new MockHttpServletRequest(servletContext, "GET", "/hotels/3"));
+		assertEquals(200, response.getStatus());
+		assertEquals(1, Tracer.getTrace().getStatements());
+		assertMemo(0, 1);
+	}
+
+	@Test
+	public void ajaxEditReadsEachResultOnce() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "POST", "/hotels/4");
+		request.addHeader("X-Requested-With", "XMLHttpRequest");
+		request.addParameter("name", "Marriott Courtyard Buckhead");
+		request.addParameter("htmlFormat", "nolayout");
+		request.addParameter("fragments", "hotelDetails,hotelResults");
+		request.addParameter("searchString", "atlanta");
+		request.addParameter("pageSize", "5");
+		MockHttpServletResponse response = service(request);
+		assertEquals(200, response.getStatus());
+		// select the hotel, update it, select the matching hotels' fields, then load the page of hotels
+		assertEquals(4, Tracer.getTrace().getStatements());
+		assertMemo(0, 2);
+	}
+
+	@Test
+	public void repeatedReadsInOneRequestRunOnce() {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		Tracer.begin("GET", "/test", null);
+		try {
+			Hotel hotel = bookingService.findHotelById(5L);
+			assertSame(hotel, bookingService.findHotelById(5L));
+			List<Hotel> hotels = bookingService.findHotels(criteria("atlanta"));
+			assertSame(hotels, bookingService.findHotels(criteria("atlanta")));
+			bookingService.findHotels(criteria("marriott"));
+			// select the hotel, then the matching hotels' fields and the page of hotels for each search
+			assertEquals(5, Tracer.getTrace().getStatements());
+			assertMemo(2, 3);
+		}
+		finally {
+			Tracer.end();
+			RequestContextHolder.resetRequestAttributes();
+		}
+	}
+
+	@Test
+	public void writeForgetsRememberedReads() {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		try {
+			Hotel hotel = bookingService.findHotelById(6L);
+			bookingService.updateHotel(hotel);
+			bookingService.findHotelById(6L);
+			assertMemo(0, 2);
+		}
+		finally {
+			RequestContextHolder.resetRequestAttributes();
+		}
+	}
+
+	@Test
+	public void readsOutsideRequestsAreNotRemembered() {
+		bookingService.findHotelById(7L);
+		bookingService.findHotelById(7L);
+		assertMemo(0, 0);
+	}
+
+	private MockHttpServletResponse service(MockHttpServletRequest request) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		servlet.service(request, response);
+		return response;
+	}
+
+	private SearchCriteria criteria(String searchString) {
+		SearchCriteria criteria = new SearchCriteria();
+		criteria.setSearchString(searchString);
+		criteria.setPageSize(5);
+		return criteria;
+	}
+
+	private void assertMemo(long expectedHits, long expectedMisses) {
+		assertEquals("hits", expectedHits, interceptor.getHits() - hits);
+		assertEquals("misses", expectedMisses, interceptor.getMisses() - misses);
+	}
+
+}